@@ -0,0 +1,37 @@
+package com.ssd.tinytask.config;
+
+import com.ssd.tinytask.repository.MvStoreTodoStore;
+import com.ssd.tinytask.repository.WriteBehindStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Durable storage for todos. When enabled, the repository persists writes to an
+ * embedded MVStore file in the background and keeps only hot todos in memory.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "tinytask.store", name = "enabled", havingValue = "true")
+public class TodoStoreConfig {
+
+    @Bean(destroyMethod = "close")
+    public WriteBehindStore writeBehindStore(
+            @Value("${tinytask.store.file:data/tinytask.mv.db}") String file,
+            @Value("${tinytask.store.cache-size:100000}") int cacheSize,
+            @Value("${tinytask.store.write-behind.max-pending:10000}") int maxPending,
+            @Value("${tinytask.store.write-behind.flush-interval-ms:200}") long flushIntervalMillis) {
+        Path parent = Path.of(file).toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(parent);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create store directory " + parent, e);
+        }
+        return new WriteBehindStore(new MvStoreTodoStore(file), maxPending, flushIntervalMillis, cacheSize);
+    }
+}
@@ -0,0 +1,92 @@
+package com.ssd.tinytask.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssd.tinytask.tracing.*;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Sampled request tracing across controller, service and repository.
+ * Spans are kept in memory for the slow request endpoint and can also be logged.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "tinytask.tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig implements WebMvcConfigurer, DisposableBean {
+
+    private final ObjectProvider<LocalValidatorFactoryBean> beanValidator;
+
+    public TracingConfig(ObjectProvider<LocalValidatorFactoryBean> beanValidator) {
+        this.beanValidator = beanValidator;
+    }
+
+    @Bean
+    public SlowRequestRecorder slowRequestRecorder(
+            @Value("${tinytask.tracing.recent-requests:512}") int recentRequests) {
+        return new SlowRequestRecorder(recentRequests);
+    }
+
+    @Bean
+    public SdkTracerProvider tracerProvider(SlowRequestRecorder slowRequestRecorder,
+                                            @Value("${tinytask.tracing.log-spans:false}") boolean logSpans) {
+        // TracingFilter samples requests before starting a root span, so every span that gets here is kept
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
+                .setSampler(Sampler.alwaysOn())
+                .addSpanProcessor(slowRequestRecorder);
+        if (logSpans) {
+            builder.addSpanProcessor(SimpleSpanProcessor.create(LoggingSpanExporter.create()));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public Tracer tracer(SdkTracerProvider tracerProvider) {
+        Tracer tracer = tracerProvider.get("tinytask");
+        TraceSpans.install(tracer);
+        return tracer;
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(
+            Tracer tracer, @Value("${tinytask.tracing.sample-ratio:0.01}") double sampleRatio) {
+        FilterRegistrationBean<TracingFilter> registration =
+                new FilterRegistrationBean<>(new TracingFilter(tracer, sampleRatio));
+        registration.addUrlPatterns("/api/todos", "/api/todos/*");
+        return registration;
+    }
+
+    @Bean
+    public TracingJacksonHttpMessageConverter tracingJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        return new TracingJacksonHttpMessageConverter(objectMapper);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TracingHandlerInterceptor()).addPathPatterns("/api/todos", "/api/todos/**");
+    }
+
+    @Override
+    public Validator getValidator() {
+        LocalValidatorFactoryBean validator = beanValidator.getIfAvailable();
+        return validator == null ? null : new TracingValidator(validator);
+    }
+
+    @Override
+    public void destroy() {
+        TraceSpans.reset();
+    }
+}
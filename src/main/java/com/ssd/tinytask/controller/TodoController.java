@@ -1,16 +1,27 @@
 package com.ssd.tinytask.controller;
 
 import com.ssd.tinytask.dto.CreateTodoRequest;
+import com.ssd.tinytask.dto.TodoChanges;
+import com.ssd.tinytask.dto.TodoPage;
+import com.ssd.tinytask.dto.TodoQueryRequest;
+import com.ssd.tinytask.dto.TodoQueryResult;
 import com.ssd.tinytask.exception.TodoNotFoundException;
 import com.ssd.tinytask.model.Todo;
+import com.ssd.tinytask.service.TodoQueryService;
+import com.ssd.tinytask.service.TodoResponseCache;
 import com.ssd.tinytask.service.TodoService;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
-import java.util.List;
 
 /**
  * REST Controller for Todo operations
@@ -21,26 +32,117 @@ import java.util.List;
 public class TodoController {
 
     private final TodoService todoService;
+    private final TodoResponseCache responseCache;
+    private final TodoQueryService todoQueryService;
 
     /**
-     * GET /api/todos - Retrieves all todos
-     * @return list of all todos
+     * GET /api/todos - Retrieves all todos, served from pre-serialized JSON.
+     * The API docs describe the bytes as the Todo array they encode.
+     * @return JSON array of all todos
      */
-    @GetMapping
-    public ResponseEntity<List<Todo>> getAllTodos() {
-        List<Todo> todos = todoService.getAllTodos();
-        return ResponseEntity.ok(todos);
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = Todo.class))))
+    public ResponseEntity<byte[]> getAllTodos() {
+        byte[] todos = responseCache.getAllTodosJson();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(todos);
     }
 
     /**
-     * GET /api/todos/{id} - Retrieves a specific todo
+     * GET /api/todos/page - Retrieves a page of todos from a consistent snapshot
+     * @param snapshot the snapshot token returned by a previous page, if any
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the page and the snapshot token to reuse for the next pages
+     */
+    @GetMapping("/page")
+    public ResponseEntity<TodoPage> getTodosPage(@RequestParam(required = false) String snapshot,
+                                                 @RequestParam(defaultValue = "0") int page,
+                                                 @RequestParam(defaultValue = "50") int size) {
+        TodoPage todoPage = todoService.getTodosPage(snapshot, page, size);
+        return ResponseEntity.ok(todoPage);
+    }
+
+    /**
+     * GET /api/todos/tags/{tag} - Retrieves a page of the todos carrying a tag
+     * @param tag the tag
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the todos with the tag, ordered by ID
+     */
+    @GetMapping("/tags/{tag}")
+    public ResponseEntity<TodoPage> getTodosByTag(@PathVariable String tag,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "50") int size) {
+        TodoPage todoPage = todoService.getTodosByTag(tag, page, size);
+        return ResponseEntity.ok(todoPage);
+    }
+
+    /**
+     * POST /api/todos/query - Filters, projects and groups todos on the server.
+     * The query is evaluated before the response starts, so errors keep their status;
+     * the result is then streamed.
+     * @param request the query
+     * @return matching todos (rows) or group counts (groups), with the number of matches
+     */
+    @PostMapping(value = "/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> query(@RequestBody TodoQueryRequest request) {
+        TodoQueryResult result = todoQueryService.query(request);
+        StreamingResponseBody body = out -> todoQueryService.writeResult(result, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * GET /api/todos/changes - Retrieves the todos changed since a sequence number
+     * @param since the sequence number returned by the previous call, 0 for a full load
+     * @param epoch the epoch returned by the previous call
+     * @return upserted todos and deleted IDs, or the full list with resync=true
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<TodoChanges> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                  @RequestParam(required = false) String epoch) {
+        TodoChanges changes = todoService.getChangesSince(epoch, since);
+        return ResponseEntity.ok(changes);
+    }
+
+    /**
+     * DELETE /api/todos/snapshots/{token} - Releases a snapshot before its lease expires
+     * @param token the snapshot token
+     * @return 204 No Content if successful
+     */
+    @DeleteMapping("/snapshots/{token}")
+    public ResponseEntity<Void> releaseSnapshot(@PathVariable String token) {
+        todoService.releaseSnapshot(token);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /api/todos/{id} - Retrieves a specific todo, served from pre-serialized JSON.
+     * The API docs describe the bytes as the Todo they encode.
      * @param id the todo ID
-     * @return the todo if found
+     * @return JSON of the todo if found
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = Todo.class)))
+    public ResponseEntity<byte[]> getTodoById(@PathVariable Long id) {
+        byte[] todo = responseCache.getTodoJson(id);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(todo);
+    }
+
+    /**
+     * GET /api/todos/{id}/subtree - Retrieves a page of a todo and all its subtasks
+     * @param id the root todo ID
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the todo followed by its subtasks, breadth-first
      */
-    @GetMapping("/{id}")
-    public ResponseEntity<Todo> getTodoById(@PathVariable Long id) {
-        Todo todo = todoService.getTodoById(id);
-        return ResponseEntity.ok(todo);
+    @GetMapping("/{id}/subtree")
+    public ResponseEntity<TodoPage> getSubtree(@PathVariable Long id,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "50") int size) {
+        TodoPage todoPage = todoService.getSubtree(id, page, size);
+        return ResponseEntity.ok(todoPage);
     }
 
     /**
@@ -51,12 +153,14 @@ public class TodoController {
     @PostMapping
     public ResponseEntity<Todo> createTodo(@Valid @RequestBody CreateTodoRequest request) {
         Todo todo = new Todo(request.getTitle());
+        todo.setParentId(request.getParentId());
+        todo.setTags(request.getTags());
         Todo createdTodo = todoService.createTodo(todo);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdTodo);
     }
 
     /**
-     * PUT /api/todos/{id}/toggle - Toggles the done status of a todo
+     * PUT /api/todos/{id}/toggle - Toggles the done status of a todo and its subtasks
      * @param id the todo ID
      * @return the updated todo
      */
@@ -68,7 +172,7 @@ public class TodoController {
     }
 
     /**
-     * DELETE /api/todos/{id} - Deletes a todo
+     * DELETE /api/todos/{id} - Deletes a todo and its subtasks
      * @param id the todo ID
      * @return 204 No Content if successful
      */
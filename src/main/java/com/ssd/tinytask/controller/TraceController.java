@@ -0,0 +1,32 @@
+package com.ssd.tinytask.controller;
+
+import com.ssd.tinytask.dto.TraceSummary;
+import com.ssd.tinytask.tracing.SlowRequestRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller exposing sampled request traces
+ */
+@RestController
+@RequestMapping("/api/traces")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "tinytask.tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TraceController {
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    /**
+     * GET /api/traces/slowest - Retrieves the slowest recent sampled requests
+     * @param limit the maximum number of requests to return
+     * @return traced requests with their span breakdown, slowest first
+     */
+    @GetMapping("/slowest")
+    public ResponseEntity<List<TraceSummary>> getSlowestRequests(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(slowRequestRecorder.slowest(Math.max(0, limit)));
+    }
+}
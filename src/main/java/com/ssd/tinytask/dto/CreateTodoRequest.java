@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import java.util.List;
 
 /**
  * DTO for creating a new todo
@@ -18,4 +19,9 @@ public class CreateTodoRequest {
     @NotBlank(message = "Title is required")
     @Size(min = 3, message = "Title must be at least 3 characters")
     private String title;
+
+    private Long parentId;
+
+    @Size(max = 20, message = "A todo can have at most 20 tags")
+    private List<@NotBlank(message = "Tags must not be blank") @Size(max = 50, message = "Tags must be at most 50 characters") String> tags;
 }
@@ -0,0 +1,17 @@
+package com.ssd.tinytask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for one span in a traced request breakdown
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpanSummary {
+    private String name;
+    private double offsetMillis;
+    private double durationMillis;
+}
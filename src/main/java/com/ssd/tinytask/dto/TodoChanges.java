@@ -0,0 +1,24 @@
+package com.ssd.tinytask.dto;
+
+import com.ssd.tinytask.model.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the todos changed since a client's last sync.
+ * When {@code resync} is true, {@code upserts} holds the complete list and replaces the client state.
+ * Clients send {@code epoch} and {@code seq} back on the next sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoChanges {
+    private String epoch;
+    private long seq;
+    private boolean resync;
+    private List<Todo> upserts;
+    private List<Long> deleted;
+}
@@ -0,0 +1,16 @@
+package com.ssd.tinytask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for one group of a grouped query: the group key and how many todos it holds
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoGroup {
+    private String key;
+    private long count;
+}
@@ -0,0 +1,22 @@
+package com.ssd.tinytask.dto;
+
+import com.ssd.tinytask.model.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a page of todos read from a consistent snapshot
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoPage {
+    private List<Todo> items;
+    private String snapshot;
+    private int page;
+    private int size;
+    private long total;
+}
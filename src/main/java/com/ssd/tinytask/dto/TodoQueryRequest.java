@@ -0,0 +1,51 @@
+package com.ssd.tinytask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for POST /api/todos/query.
+ * Example: pending todos whose title contains "report", grouped by first word, top 100:
+ * {@code {"filter": {"done": false, "titleContains": "report"}, "groupBy": "firstWord", "limit": 100}}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoQueryRequest {
+
+    /**
+     * Conditions a todo must all match; null matches every todo
+     */
+    private Filter filter;
+
+    /**
+     * Fields to return for each todo: id, title, done, parentId, tags; null or empty for all
+     */
+    private List<String> fields;
+
+    /**
+     * Counts matching todos per group instead of returning them: firstWord, done, tag or parentId
+     */
+    private String groupBy;
+
+    /**
+     * Maximum number of todos or groups to return; null for the configured maximum
+     */
+    private Integer limit;
+
+    /**
+     * Filter part of a query. Every condition that is set must match.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private Boolean done;
+        private String titleContains;
+        private String tag;
+        private Long parentId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ssd.tinytask.dto;
+
+import com.ssd.tinytask.model.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Evaluated query: either the matching todos with the fields to write, or groups.
+ * Written to the response as a stream by TodoQueryService.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoQueryResult {
+    private long matched;
+    private boolean parallel;
+    private List<String> fields;
+    private List<Todo> rows;
+    private List<TodoGroup> groups;
+}
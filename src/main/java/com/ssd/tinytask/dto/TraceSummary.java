@@ -0,0 +1,22 @@
+package com.ssd.tinytask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO for a traced request with its span breakdown
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TraceSummary {
+    private String traceId;
+    private String name;
+    private Instant startedAt;
+    private double durationMillis;
+    private List<SpanSummary> spans;
+}
@@ -25,6 +25,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    /**
+     * Handles SnapshotNotFoundException
+     * @param ex the exception
+     * @return 410 error response
+     */
+    @ExceptionHandler(SnapshotNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleSnapshotNotFound(SnapshotNotFoundException ex) {
+        ErrorResponse error = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.GONE).body(error);
+    }
+
+    /**
+     * Handles TooManySnapshotsException
+     * @param ex the exception
+     * @return 429 error response
+     */
+    @ExceptionHandler(TooManySnapshotsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManySnapshots(TooManySnapshotsException ex) {
+        ErrorResponse error = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
+    }
+
     /**
      * Handles InvalidTodoException
      * @param ex the exception
@@ -36,6 +58,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    /**
+     * Handles InvalidQueryException
+     * @param ex the exception
+     * @return 400 error response
+     */
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidQuery(InvalidQueryException ex) {
+        ErrorResponse error = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    /**
+     * Handles QueryTimeoutException
+     * @param ex the exception
+     * @return 503 error response
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleQueryTimeout(QueryTimeoutException ex) {
+        ErrorResponse error = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
     /**
      * Handles validation errors from @Valid annotations
      * @param ex the exception
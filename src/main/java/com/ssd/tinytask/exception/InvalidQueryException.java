@@ -0,0 +1,10 @@
+package com.ssd.tinytask.exception;
+
+/**
+ * Exception thrown when a query uses unknown fields, groupings or out-of-range limits
+ */
+public class InvalidQueryException extends RuntimeException {
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.ssd.tinytask.exception;
+
+/**
+ * Exception thrown when a query runs longer than the configured timeout
+ */
+public class QueryTimeoutException extends RuntimeException {
+    public QueryTimeoutException(long timeoutMillis) {
+        super("Query exceeded the timeout of " + timeoutMillis + " ms");
+    }
+}
@@ -0,0 +1,10 @@
+package com.ssd.tinytask.exception;
+
+/**
+ * Exception thrown when a snapshot token is unknown or has expired
+ */
+public class SnapshotNotFoundException extends RuntimeException {
+    public SnapshotNotFoundException(String token) {
+        super("Snapshot expired or not found: " + token);
+    }
+}
@@ -0,0 +1,10 @@
+package com.ssd.tinytask.exception;
+
+/**
+ * Exception thrown when a new snapshot would exceed the number of snapshots allowed open at once
+ */
+public class TooManySnapshotsException extends RuntimeException {
+    public TooManySnapshotsException(int maxOpenSnapshots) {
+        super("Too many open snapshots (limit " + maxOpenSnapshots + "), retry later");
+    }
+}
@@ -1,20 +1,26 @@
 package com.ssd.tinytask.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Todo model representing a task.
  * This entity is stored in memory.
+ * A todo may be a subtask of another todo (its parent) and carry tags.
+ * IDs are unique but not in creation order; lists are ordered by createdSeq instead.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Todo {
     private Long id;
     private String title;
     private boolean done;
+    private Long parentId;
+    private List<String> tags = List.of();
+    // Repository version that created the todo, assigned when it is first saved
+    private Long createdSeq;
 
     /**
      * Constructor for creating a new Todo without an ID
@@ -24,4 +30,47 @@ public class Todo {
         this.title = title;
         this.done = false;
     }
+
+    /**
+     * Constructor for a top-level todo without tags
+     * @param id the todo ID
+     * @param title the task title
+     * @param done whether the task is done
+     */
+    public Todo(Long id, String title, boolean done) {
+        this(id, title, done, null, List.of());
+    }
+
+    /**
+     * @param id the todo ID
+     * @param title the task title
+     * @param done whether the task is done
+     * @param parentId the parent todo ID, or null for a top-level todo
+     * @param tags the tags, copied into an immutable list
+     */
+    public Todo(Long id, String title, boolean done, Long parentId, List<String> tags) {
+        this.id = id;
+        this.title = title;
+        this.done = done;
+        this.parentId = parentId;
+        setTags(tags);
+    }
+
+    /**
+     * Sets the tags, copied into an immutable list
+     * @param tags the tags, or null for none
+     */
+    public void setTags(List<String> tags) {
+        this.tags = tags == null ? List.of() : List.copyOf(tags);
+    }
+
+    /**
+     * Creates a detached copy of this todo
+     * @return a new Todo with the same field values
+     */
+    public Todo copy() {
+        Todo copy = new Todo(id, title, done, parentId, tags);
+        copy.createdSeq = createdSeq;
+        return copy;
+    }
 }
@@ -0,0 +1,182 @@
+package com.ssd.tinytask.repository;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Hands out unique todo IDs without a shared counter on the hot path.
+ * Each thread takes a block of IDs from the shared counter and then allocates from
+ * it locally, so writers only meet on the counter once per block. Before a block is
+ * used, a high-water mark covering it must have been reported; persisting that mark is
+ * enough for a restart to continue above every ID that may have been handed out.
+ * <p>
+ * Marks are reported in the background, a range of {@value #BLOCKS_PER_RESERVATION}
+ * blocks at a time, and kept one to two ranges ahead of the blocks in use: once a
+ * block reaches into the last reserved range, the next range is requested. Taking a
+ * block only waits for the reservation when the first block is taken or when writers
+ * use up a whole range before the previous reservation is done; the range then
+ * doubles, up to {@value #MAX_RANGE_GROWTH} times its initial size, so that the
+ * reservations soon stay ahead of the writers.
+ * <p>
+ * IDs stay unique and increase per thread, but across threads they no longer follow
+ * creation order, and IDs left in a block or range when the process stops are never used.
+ */
+public class IdAllocator {
+
+    static final int BLOCKS_PER_RESERVATION = 64;
+    static final int MAX_RANGE_GROWTH = 1024;
+
+    private final long firstId;
+    private final AtomicLong nextBlock;
+    private final int blockSize;
+    private final long initialReservationSize;
+    // IDs covered by one reservation, grown under this allocator's monitor
+    private volatile long reservationSize;
+    private final LongConsumer reservation;
+    private final Executor reserver;
+    // Highest ID covered by a completed reservation, and by the latest requested one; raised under this allocator's monitor
+    private volatile long reserved;
+    private volatile long requested;
+    // Why the latest reservation failed, cleared when a new one is requested; guarded by this allocator's monitor
+    private RuntimeException failure;
+    // The requested mark the range last grew for, so threads waiting on the same reservation grow it once
+    private long grownFor;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * @param firstId the lowest ID to hand out
+     * @param blockSize how many IDs a thread takes at once; 1 allocates straight from the shared counter
+     * @param reservation receives a new high-water mark before any ID below it is used;
+     *                    called from a background thread, one mark at a time
+     */
+    public IdAllocator(long firstId, int blockSize, LongConsumer reservation) {
+        this(firstId, blockSize, reservation, new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "todo-id-reserver");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    /**
+     * @param reserver runs reservations in the order they are requested
+     */
+    IdAllocator(long firstId, int blockSize, LongConsumer reservation, Executor reserver) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.firstId = firstId;
+        this.nextBlock = new AtomicLong(firstId);
+        this.blockSize = blockSize;
+        this.initialReservationSize = (long) blockSize * BLOCKS_PER_RESERVATION;
+        this.reservationSize = initialReservationSize;
+        this.reservation = reservation;
+        this.reserver = reserver;
+        this.reserved = firstId - 1;
+        this.requested = firstId - 1;
+    }
+
+    /**
+     * @return an ID never returned before by this allocator or, given a persisted
+     *         high-water mark, by an earlier one
+     * @throws IllegalStateException if the IDs could not be reserved
+     */
+    public long next() {
+        Block block = blocks.get();
+        if (block.next == block.end) {
+            long start = nextBlock.getAndAdd(blockSize);
+            long end = start + blockSize - 1;
+            if (end + reservationSize > requested) {
+                reserveAhead(end);
+            }
+            if (end > reserved) {
+                awaitReserved(end);
+            }
+            block.next = start;
+            block.end = start + blockSize;
+        }
+        return block.next++;
+    }
+
+    /**
+     * @return the highest ID covered by a completed reservation, or one below the first ID
+     */
+    public long highWaterMark() {
+        return reserved;
+    }
+
+    /**
+     * Requests the next range once a block reaches into the last reserved one
+     */
+    private synchronized void reserveAhead(long blockEnd) {
+        if (blockEnd + reservationSize <= requested) {
+            return;
+        }
+        long mark = Math.max(requested, blockEnd) + reservationSize;
+        requested = mark;
+        failure = null;
+        reserver.execute(() -> report(mark));
+    }
+
+    private void report(long mark) {
+        RuntimeException error = null;
+        try {
+            reservation.accept(mark);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        synchronized (this) {
+            if (error == null) {
+                reserved = Math.max(reserved, mark);
+            } else {
+                failure = error;
+                requested = reserved; // Lets the next block request the range again
+            }
+            notifyAll();
+        }
+    }
+
+    private synchronized void awaitReserved(long blockEnd) {
+        if (reserved >= blockEnd) {
+            return;
+        }
+        // Writers outran the reservations (rather than waiting for the first one); grow once per stalled reservation
+        if (reserved >= firstId && failure == null && grownFor != requested
+                && reservationSize < initialReservationSize * MAX_RANGE_GROWTH) {
+            reservationSize *= 2;
+            grownFor = requested;
+        }
+        boolean interrupted = false;
+        try {
+            while (reserved < blockEnd) {
+                if (failure != null) {
+                    throw new IllegalStateException("Could not reserve todo IDs", failure);
+                }
+                if (requested < blockEnd) {
+                    reserveAhead(blockEnd);
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The calling thread's current range of IDs, from next (inclusive) to end (exclusive)
+     */
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+}
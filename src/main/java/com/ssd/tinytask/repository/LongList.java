@@ -0,0 +1,74 @@
+package com.ssd.tinytask.repository;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, growable list of primitive longs.
+ * Holds todo IDs in the repository indexes without boxing: 8 bytes per ID instead
+ * of a Long plus a collection node. Not thread-safe.
+ */
+final class LongList {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] values;
+    private int size;
+
+    LongList() {
+        this.values = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Inserts a value keeping the list sorted; IDs usually arrive in ascending order,
+     * so this is an append in the common case
+     * @return false if the value was already present
+     */
+    boolean add(long value) {
+        int index;
+        if (size == 0 || values[size - 1] < value) {
+            index = size;
+        } else {
+            index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return false if the value was not present
+     */
+    boolean remove(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
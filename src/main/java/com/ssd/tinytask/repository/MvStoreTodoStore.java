@@ -0,0 +1,159 @@
+package com.ssd.tinytask.repository;
+
+import com.ssd.tinytask.model.Todo;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * TodoStore backed by an H2 MVStore file.
+ * Todos are kept in one map as compact binary records, with strings written as
+ * length-prefixed UTF-8 so titles of any length fit; a second map holds the
+ * highest ID reserved or written and the highest version written, so a restart
+ * never goes back in time.
+ */
+public class MvStoreTodoStore implements TodoStore {
+
+    private static final String MAX_ID = "maxId";
+    private static final String MAX_VERSION = "maxVersion";
+    private static final long NO_PARENT = 0;
+
+    private final MVStore store;
+    private final MVMap<Long, byte[]> todos;
+    private final MVMap<String, Long> meta;
+
+    public MvStoreTodoStore(String fileName) {
+        this.store = new MVStore.Builder()
+                .fileName(fileName)
+                .autoCommitDisabled()
+                .open();
+        this.todos = store.openMap("todos");
+        this.meta = store.openMap("meta");
+    }
+
+    @Override
+    public StoredTodo load(Long id) {
+        byte[] record = todos.get(id);
+        return record == null ? null : decode(id, record);
+    }
+
+    @Override
+    public void forEach(Consumer<StoredTodo> visitor) {
+        for (Map.Entry<Long, byte[]> entry : todos.entrySet()) {
+            visitor.accept(decode(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    @Override
+    public synchronized Set<Long> write(Map<Long, StoredTodo> upserts, Collection<Long> deletes, long version) {
+        long maxId = meta.getOrDefault(MAX_ID, 0L);
+        Set<Long> rejected = new HashSet<>();
+        for (Map.Entry<Long, StoredTodo> entry : upserts.entrySet()) {
+            byte[] record;
+            try {
+                record = encode(entry.getValue());
+            } catch (RuntimeException e) {
+                rejected.add(entry.getKey());
+                continue;
+            }
+            todos.put(entry.getKey(), record);
+            maxId = Math.max(maxId, entry.getKey());
+        }
+        for (Long id : deletes) {
+            todos.remove(id);
+            maxId = Math.max(maxId, id);
+        }
+        meta.put(MAX_ID, maxId);
+        meta.put(MAX_VERSION, Math.max(version, meta.getOrDefault(MAX_VERSION, 0L)));
+        store.commit();
+        return rejected;
+    }
+
+    @Override
+    public synchronized void reserveIds(long maxId) {
+        if (maxId > meta.getOrDefault(MAX_ID, 0L)) {
+            meta.put(MAX_ID, maxId);
+            store.commit();
+        }
+    }
+
+    @Override
+    public long count() {
+        return todos.sizeAsLong();
+    }
+
+    @Override
+    public long maxId() {
+        return meta.getOrDefault(MAX_ID, 0L);
+    }
+
+    @Override
+    public long maxVersion() {
+        return meta.getOrDefault(MAX_VERSION, 0L);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!store.isClosed()) {
+            store.close();
+        }
+    }
+
+    static byte[] encode(StoredTodo stored) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(stored.version());
+            out.writeLong(stored.todo().getCreatedSeq());
+            writeString(out, stored.todo().getTitle());
+            out.writeBoolean(stored.todo().isDone());
+            Long parentId = stored.todo().getParentId();
+            out.writeLong(parentId == null ? NO_PARENT : parentId);
+            out.writeShort(stored.todo().getTags().size());
+            for (String tag : stored.todo().getTags()) {
+                writeString(out, tag);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static StoredTodo decode(Long id, byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            long version = in.readLong();
+            long createdSeq = in.readLong();
+            String title = readString(in);
+            boolean done = in.readBoolean();
+            long parentId = in.readLong();
+            String[] tags = new String[in.readUnsignedShort()];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = readString(in);
+            }
+            Todo todo = new Todo(id, title, done, parentId == NO_PARENT ? null : parentId, List.of(tags));
+            todo.setCreatedSeq(createdSeq);
+            return new StoredTodo(version, todo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ssd.tinytask.repository;
+
+import com.ssd.tinytask.model.Todo;
+
+import java.util.*;
+
+/**
+ * Secondary indexes of live todos: children by parent ID and members by tag.
+ * IDs are kept in primitive {@link LongList}s in ascending order. Writers update the
+ * index under the repository write lock when their writes are published, so IDs of
+ * an atomic change in progress are not listed yet; readers copy IDs out under this
+ * object's monitor, so a subtree is always read from one consistent state of the index.
+ */
+final class TodoIndex {
+
+    private final Map<Long, LongList> childrenByParent = new HashMap<>();
+    private final Map<String, LongList> todosByTag = new HashMap<>();
+
+    /**
+     * Moves a todo between index entries after a write
+     * @param id the todo ID
+     * @param previous the todo before the write, or null if it did not exist
+     * @param current the todo after the write, or null if it was deleted
+     */
+    synchronized void update(Long id, Todo previous, Todo current) {
+        Long oldParent = previous == null ? null : previous.getParentId();
+        Long newParent = current == null ? null : current.getParentId();
+        if (!Objects.equals(oldParent, newParent)) {
+            if (oldParent != null) {
+                remove(childrenByParent, oldParent, id);
+            }
+            if (newParent != null) {
+                childrenByParent.computeIfAbsent(newParent, parent -> new LongList()).add(id);
+            }
+        }
+
+        List<String> oldTags = previous == null ? List.of() : previous.getTags();
+        List<String> newTags = current == null ? List.of() : current.getTags();
+        if (!oldTags.equals(newTags)) {
+            for (String tag : oldTags) {
+                if (!newTags.contains(tag)) {
+                    remove(todosByTag, tag, id);
+                }
+            }
+            for (String tag : newTags) {
+                todosByTag.computeIfAbsent(tag, key -> new LongList()).add(id);
+            }
+        }
+    }
+
+    /**
+     * @param rootId the subtree root
+     * @return the root followed by its descendants in breadth-first order
+     */
+    synchronized long[] subtree(long rootId) {
+        long[] order = new long[16];
+        order[0] = rootId;
+        int length = 1;
+        for (int head = 0; head < length; head++) {
+            LongList children = childrenByParent.get(order[head]);
+            if (children == null) {
+                continue;
+            }
+            if (length + children.size() > order.length) {
+                order = Arrays.copyOf(order, Math.max(order.length * 2, length + children.size()));
+            }
+            for (int i = 0; i < children.size(); i++) {
+                order[length++] = children.get(i);
+            }
+        }
+        return Arrays.copyOf(order, length);
+    }
+
+    /**
+     * @param tag a normalized tag
+     * @return IDs of the todos carrying the tag, ascending
+     */
+    synchronized long[] tagged(String tag) {
+        LongList members = todosByTag.get(tag);
+        return members == null ? new long[0] : members.toArray();
+    }
+
+    private static <K> void remove(Map<K, LongList> index, K key, long id) {
+        LongList ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
@@ -1,28 +1,173 @@
 package com.ssd.tinytask.repository;
 
+import com.ssd.tinytask.exception.SnapshotNotFoundException;
+import com.ssd.tinytask.exception.TooManySnapshotsException;
 import com.ssd.tinytask.model.Todo;
+import com.ssd.tinytask.tracing.SpanScope;
+import com.ssd.tinytask.tracing.TraceSpans;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * TodoRepository manages in-memory storage of Todo items.
- * Uses ConcurrentHashMap for thread-safety and AtomicLong for auto-incrementing IDs.
+ * Uses ConcurrentHashMap for thread-safety and an {@link IdAllocator} that hands each
+ * writer thread its own block of IDs.
+ * <p>
+ * Every write creates a new immutable version of the affected todo (MVCC), so readers
+ * can pin a repository version and see a consistent view without blocking writers.
+ * Old versions are reclaimed as soon as no pinned reader can see them anymore.
+ * <p>
+ * With a {@link WriteBehindStore} configured, memory becomes a size-bounded cache:
+ * writes are persisted in the background, cold clean entries are evicted (CLOCK,
+ * an approximation of LRU) and reads fall through to disk for evicted todos.
+ * <p>
+ * Writes become visible when the outermost write lock is released, so several writes
+ * run through {@link #atomically} are published as one change.
  */
 @Repository
 public class TodoRepository {
 
-    private final Map<Long, Todo> todos = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    private static final long DEFAULT_SNAPSHOT_LEASE_SECONDS = 60;
+    private static final int DEFAULT_TOMBSTONE_LOG_SIZE = 10_000;
+    private static final int DEFAULT_ID_BLOCK_SIZE = 100;
+    private static final int DEFAULT_MAX_OPEN_SNAPSHOTS = 1000;
+    private static final long SNAPSHOT_SWEEP_INTERVAL_MILLIS = 1000;
+    // Lists follow creation rather than ID, since IDs come from per-thread blocks
+    private static final Comparator<Todo> CREATION_ORDER =
+            Comparator.comparing(Todo::getCreatedSeq).thenComparing(Todo::getId);
+
+    private final Map<Long, VersionedTodo> todos = new ConcurrentHashMap<>();
+    private final IdAllocator idAllocator;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long currentVersion = 0;
+    // Last version handed out and IDs written since the last publish, guarded by writeLock
+    private long writeVersion = 0;
+    private final Set<Long> unpublished = new LinkedHashSet<>();
+    private volatile long liveCount = 0;
+
+    // Pinned version -> number of readers holding it, guarded by its own monitor
+    private final NavigableMap<Long, Integer> pinnedVersions = new TreeMap<>();
+    // Ids whose version chain still holds history (or a tombstone) kept for a reader
+    private final Set<Long> retainedHistory = ConcurrentHashMap.newKeySet();
+    // Set when the low-water mark rose while a writer held the lock, so that writer prunes on release
+    private volatile boolean retainedPrunePending = false;
+    private final Map<String, TodoSnapshot> openSnapshots = new ConcurrentHashMap<>();
+    private final long snapshotLeaseMillis;
+    private final int maxOpenSnapshots;
+    // Earliest time the write path looks for expired snapshots again, guarded by writeLock
+    private long nextSnapshotSweepAt = 0;
+
+    // Change sequence: latest version -> id of live todos, and a bounded log of deletions
+    private final ConcurrentSkipListMap<Long, Long> changeLog = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, Long> tombstoneLog = new ConcurrentSkipListMap<>();
+    private final int tombstoneLogSize;
+    private volatile long tombstonesTruncatedAt = 0;
+    // Identifies this repository instance; sequence numbers are only comparable within one epoch
+    private final String epoch = UUID.randomUUID().toString();
+
+    // Optional on-disk store; null keeps every todo in memory only
+    private final WriteBehindStore writeBehind;
+    // Resident ids in CLOCK order for eviction, and the live todos only on disk with their stored version
+    private final Queue<Long> clock = new ConcurrentLinkedQueue<>();
+    private final Map<Long, EvictedTodo> evicted = new ConcurrentHashMap<>();
+
+    // Children by parent and todos by tag, covering evicted todos too; only holds published writes
+    private final TodoIndex index = new TodoIndex();
+
+    public TodoRepository() {
+        this(DEFAULT_SNAPSHOT_LEASE_SECONDS, DEFAULT_TOMBSTONE_LOG_SIZE);
+    }
+
+    public TodoRepository(long snapshotLeaseSeconds) {
+        this(snapshotLeaseSeconds, DEFAULT_TOMBSTONE_LOG_SIZE);
+    }
+
+    public TodoRepository(long snapshotLeaseSeconds, int tombstoneLogSize) {
+        this(snapshotLeaseSeconds, tombstoneLogSize, (WriteBehindStore) null);
+    }
+
+    @Autowired
+    public TodoRepository(@Value("${tinytask.snapshot.lease-seconds:60}") long snapshotLeaseSeconds,
+                          @Value("${tinytask.changes.tombstone-log-size:10000}") int tombstoneLogSize,
+                          @Value("${tinytask.snapshot.max-open:1000}") int maxOpenSnapshots,
+                          @Value("${tinytask.ids.block-size:100}") int idBlockSize,
+                          ObjectProvider<WriteBehindStore> writeBehind) {
+        this(snapshotLeaseSeconds, tombstoneLogSize, writeBehind.getIfAvailable(), idBlockSize, maxOpenSnapshots);
+    }
+
+    public TodoRepository(long snapshotLeaseSeconds, int tombstoneLogSize, WriteBehindStore writeBehind) {
+        this(snapshotLeaseSeconds, tombstoneLogSize, writeBehind, DEFAULT_ID_BLOCK_SIZE, DEFAULT_MAX_OPEN_SNAPSHOTS);
+    }
+
+    public TodoRepository(long snapshotLeaseSeconds, int tombstoneLogSize, WriteBehindStore writeBehind,
+                          int idBlockSize, int maxOpenSnapshots) {
+        this.snapshotLeaseMillis = TimeUnit.SECONDS.toMillis(snapshotLeaseSeconds);
+        this.maxOpenSnapshots = maxOpenSnapshots;
+        this.tombstoneLogSize = tombstoneLogSize;
+        this.writeBehind = writeBehind;
+        // With a store, IDs continue above the persisted high-water mark, raised in the background ahead of use;
+        // without one there is nothing to persist, so the mark is raised inline
+        this.idAllocator = writeBehind == null
+                ? new IdAllocator(1, idBlockSize, maxId -> { }, Runnable::run)
+                : new IdAllocator(writeBehind.store().maxId() + 1, idBlockSize, writeBehind::reserveIds);
+        if (writeBehind != null) {
+            loadFromStore();
+        }
+    }
 
     /**
-     * Retrieves all todos
-     * @return list of all todos
+     * Retrieves all todos as of a single point in time
+     * @return list of all todos in creation order
      */
     public List<Todo> findAll() {
-        return new ArrayList<>(todos.values());
+        try (SpanScope ignored = TraceSpans.child("TodoRepository.findAll")) {
+            long version = pin();
+            try {
+                return readAt(version);
+            } finally {
+                unpin(version);
+            }
+        }
+    }
+
+    /**
+     * Retrieves a range of the todos visible in an open snapshot. Only the requested
+     * todos are read, at the snapshot's version, from the IDs listed when it was opened.
+     * The read holds its own pin, so a release or expiry during the read cannot prune
+     * the versions it is reading.
+     * @param snapshot a snapshot obtained from {@link #openSnapshot()} or {@link #findSnapshot}
+     * @param from the first position in the snapshot, inclusive
+     * @param to the last position in the snapshot, exclusive
+     * @return the todos in creation order, as they were when the snapshot was opened
+     * @throws SnapshotNotFoundException if the snapshot was released or expired in the meantime
+     */
+    public List<Todo> findPage(TodoSnapshot snapshot, int from, int to) {
+        try (SpanScope ignored = TraceSpans.child("TodoRepository.findPage")) {
+            long version = snapshot.getVersion();
+            synchronized (pinnedVersions) {
+                // A releaser removes the snapshot before unpinning, so while it is still open its pin holds
+                if (openSnapshots.get(snapshot.getToken()) != snapshot) {
+                    throw new SnapshotNotFoundException(snapshot.getToken());
+                }
+                pinnedVersions.merge(version, 1, Integer::sum);
+            }
+            try {
+                return readIdsAt(snapshot.ids(), from, to, version);
+            } finally {
+                unpin(version);
+            }
+        }
     }
 
     /**
@@ -31,20 +176,46 @@ public class TodoRepository {
      * @return Optional containing the todo if found, empty otherwise
      */
     public Optional<Todo> findById(Long id) {
-        return Optional.ofNullable(todos.get(id));
+        try (SpanScope ignored = TraceSpans.child("TodoRepository.findById")) {
+            VersionedTodo head = headOf(id);
+            Todo value = head == null ? null : committedValue(head);
+            if (value == null) {
+                return Optional.empty();
+            }
+            head.referenced = true;
+            return Optional.of(value.copy());
+        }
     }
 
     /**
-     * Saves a new todo or updates an existing one
+     * Saves a new todo or updates an existing one.
+     * The repository stores its own copy, so later changes to the given instance
+     * are not visible until it is saved again. A new todo gets the version that creates
+     * it as its creation sequence; an update keeps the one it already has.
      * @param todo the todo to save
-     * @return the saved todo with generated ID
+     * @return the saved todo with generated ID and creation sequence
      */
     public Todo save(Todo todo) {
-        if (todo.getId() == null) {
-            todo.setId(idGenerator.getAndIncrement());
+        try (SpanScope ignored = TraceSpans.child("TodoRepository.save")) {
+            boolean created = todo.getId() == null;
+            if (created) {
+                todo.setId(idAllocator.next()); // Outside the lock: allocation never waits for other writers
+            }
+            writeLock.lock();
+            try {
+                VersionedTodo previous = created ? null : headOf(todo.getId());
+                if (previous == null || previous.value == null) {
+                    liveCount++;
+                    todo.setCreatedSeq(writeVersion + 1); // The version commit is about to assign
+                } else {
+                    todo.setCreatedSeq(previous.value.getCreatedSeq());
+                }
+                commit(todo.getId(), todo.copy());
+                return todo;
+            } finally {
+                unlockWrite();
+            }
         }
-        todos.put(todo.getId(), todo);
-        return todo;
     }
 
     /**
@@ -53,7 +224,20 @@ public class TodoRepository {
      * @return true if deleted, false if not found
      */
     public boolean deleteById(Long id) {
-        return todos.remove(id) != null;
+        try (SpanScope ignored = TraceSpans.child("TodoRepository.deleteById")) {
+            writeLock.lock();
+            try {
+                VersionedTodo head = headOf(id);
+                if (head == null || head.value == null) {
+                    return false;
+                }
+                liveCount--;
+                commit(id, null);
+                return true;
+            } finally {
+                unlockWrite();
+            }
+        }
     }
 
     /**
@@ -62,7 +246,61 @@ public class TodoRepository {
      * @return true if exists, false otherwise
      */
     public boolean existsById(Long id) {
-        return todos.containsKey(id);
+        VersionedTodo head = headOf(id);
+        return head != null && committedValue(head) != null;
+    }
+
+    /**
+     * Runs several reads and writes as one atomic change: other readers see either
+     * none or all of its writes, and no other writer interleaves with it
+     * @param work the operations to run
+     * @return the result of the work
+     */
+    public <T> T atomically(Supplier<T> work) {
+        writeLock.lock();
+        try {
+            return work.get();
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Finds the IDs of a todo and all its subtasks
+     * @param rootId the root todo ID
+     * @return the root followed by its descendants breadth-first, or an empty array if the root doesn't exist
+     */
+    public long[] findSubtreeIds(Long rootId) {
+        try (SpanScope ignored = TraceSpans.child("TodoRepository.findSubtreeIds")) {
+            return existsById(rootId) ? index.subtree(rootId) : new long[0];
+        }
+    }
+
+    /**
+     * Finds the IDs of the todos carrying a tag
+     * @param tag the tag
+     * @return the IDs in ascending order
+     */
+    public long[] findIdsByTag(String tag) {
+        return index.tagged(tag);
+    }
+
+    /**
+     * Retrieves a range of todos by ID, all read at the same version
+     * @param ids the todo IDs
+     * @param from the first index in ids, inclusive
+     * @param to the last index in ids, exclusive
+     * @return the todos in the order of ids, skipping ones that no longer exist
+     */
+    public List<Todo> findAllById(long[] ids, int from, int to) {
+        try (SpanScope ignored = TraceSpans.child("TodoRepository.findAllById")) {
+            long version = pin();
+            try {
+                return readIdsAt(ids, from, to, version);
+            } finally {
+                unpin(version);
+            }
+        }
     }
 
     /**
@@ -70,13 +308,570 @@ public class TodoRepository {
      * @return the number of todos
      */
     public long count() {
-        return todos.size();
+        return liveCount;
     }
 
     /**
      * Clears all todos (useful for testing)
      */
     public void deleteAll() {
-        todos.clear();
+        writeLock.lock();
+        try {
+            Set<Long> ids = new HashSet<>(todos.keySet());
+            ids.addAll(evicted.keySet());
+            for (Long id : ids) {
+                VersionedTodo head = headOf(id);
+                if (head != null && head.value != null) {
+                    commit(id, null);
+                }
+            }
+            liveCount = 0;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Returns the latest committed repository version
+     * @return the current version, incremented by every write
+     */
+    public long currentVersion() {
+        return currentVersion;
+    }
+
+    // ========== CHANGE SEQUENCE ==========
+
+    /**
+     * Returns the epoch sequence numbers belong to. It changes whenever the repository
+     * is recreated, e.g. on a server restart, since versions may then start over.
+     * @return an opaque identifier of this repository instance
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Checks whether every change after the given sequence number is still known.
+     * Sequence numbers from another epoch are not comparable, and deletions older
+     * than the bounded tombstone log are forgotten.
+     * @param epoch the epoch the client's sequence number was issued in
+     * @param since the last sequence number the client has applied
+     * @return true if {@link #findChangedSince} and {@link #findDeletedSince} are complete
+     */
+    public boolean canServeChangesSince(String epoch, long since) {
+        return this.epoch.equals(epoch) && since >= tombstonesTruncatedAt && since <= currentVersion;
+    }
+
+    /**
+     * Finds todos created or updated after a sequence number
+     * @param since the exclusive lower bound
+     * @param upTo the inclusive upper bound, usually {@link #currentVersion()}
+     * @return the latest state of each changed todo, in change order
+     */
+    public List<Todo> findChangedSince(long since, long upTo) {
+        List<Todo> changed = new ArrayList<>();
+        for (Long id : changeLog.subMap(since, false, upTo, true).values()) {
+            VersionedTodo head = headOf(id);
+            Todo value = head == null ? null : committedValue(head);
+            if (value != null) {
+                changed.add(value.copy());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Finds IDs of todos deleted after a sequence number
+     * @param since the exclusive lower bound
+     * @param upTo the inclusive upper bound, usually {@link #currentVersion()}
+     * @return the deleted IDs, in deletion order
+     */
+    public List<Long> findDeletedSince(long since, long upTo) {
+        return new ArrayList<>(tombstoneLog.subMap(since, false, upTo, true).values());
+    }
+
+    // ========== SNAPSHOTS ==========
+
+    /**
+     * Pins the current repository version behind a reusable token.
+     * The snapshot stays valid while it keeps being used within its lease.
+     * @return the opened snapshot
+     * @throws TooManySnapshotsException if the maximum number of snapshots is already open
+     */
+    public TodoSnapshot openSnapshot() {
+        expireSnapshots();
+        if (openSnapshots.size() >= maxOpenSnapshots) {
+            throw new TooManySnapshotsException(maxOpenSnapshots);
+        }
+        long version = pin();
+        TodoSnapshot snapshot = new TodoSnapshot(UUID.randomUUID().toString(), version, idsAt(version),
+                System.currentTimeMillis() + snapshotLeaseMillis);
+        openSnapshots.put(snapshot.getToken(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Looks up an open snapshot and extends its lease
+     * @param token the snapshot token
+     * @return Optional containing the snapshot, empty if unknown or expired
+     */
+    public Optional<TodoSnapshot> findSnapshot(String token) {
+        expireSnapshots();
+        TodoSnapshot snapshot = openSnapshots.get(token);
+        if (snapshot != null) {
+            snapshot.extendLease(System.currentTimeMillis() + snapshotLeaseMillis);
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Releases a snapshot so the versions it pinned can be reclaimed
+     * @param token the snapshot token
+     * @return true if released, false if it was not open
+     */
+    public boolean releaseSnapshot(String token) {
+        TodoSnapshot snapshot = openSnapshots.remove(token);
+        if (snapshot == null) {
+            return false;
+        }
+        unpin(snapshot.getVersion());
+        return true;
+    }
+
+    private void expireSnapshots() {
+        long now = System.currentTimeMillis();
+        for (TodoSnapshot snapshot : openSnapshots.values()) {
+            if (snapshot.isExpired(now)) {
+                releaseSnapshot(snapshot.getToken());
+            }
+        }
+    }
+
+    // ========== MVCC INTERNALS ==========
+
+    private List<Todo> readAt(long version) {
+        List<Todo> result = new ArrayList<>();
+        // Taken before the memory scan as well as after it, so a todo reloaded or evicted meanwhile is not missed
+        Set<Long> evictedIds = new HashSet<>(evicted.keySet());
+        for (VersionedTodo head : todos.values()) {
+            Todo visible = visibleAt(head, version);
+            if (visible != null) {
+                result.add(visible.copy());
+            }
+        }
+        evictedIds.addAll(evicted.keySet());
+        if (!evictedIds.isEmpty()) {
+            addEvictedAt(evictedIds, version, result);
+        }
+        result.sort(CREATION_ORDER);
+        return result;
+    }
+
+    /**
+     * Lists the IDs of the todos visible at a version, in the order of {@link #readAt},
+     * without copying the todos or reading evicted ones from disk
+     */
+    private long[] idsAt(long version) {
+        // Taken before the memory scan as well as after it, so a todo reloaded or evicted meanwhile is not missed
+        Set<Long> evictedIds = new HashSet<>(evicted.keySet());
+        Map<Long, Long> createdSeqs = new HashMap<>();
+        for (Map.Entry<Long, VersionedTodo> entry : todos.entrySet()) {
+            Todo visible = visibleAt(entry.getValue(), version);
+            if (visible != null) {
+                createdSeqs.put(entry.getKey(), visible.getCreatedSeq());
+                evictedIds.remove(entry.getKey());
+            }
+        }
+        evictedIds.addAll(evicted.keySet());
+        for (Long id : evictedIds) {
+            EvictedTodo evictedTodo = evicted.get(id);
+            if (evictedTodo != null) {
+                if (evictedTodo.version() <= version) {
+                    createdSeqs.put(id, evictedTodo.createdSeq());
+                }
+            } else {
+                VersionedTodo head = todos.get(id);
+                Todo visible = head == null ? null : visibleAt(head, version);
+                if (visible != null) {
+                    createdSeqs.put(id, visible.getCreatedSeq());
+                }
+            }
+        }
+        return createdSeqs.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+    }
+
+    /**
+     * Reads a range of IDs at a pinned version, skipping todos not visible there
+     */
+    private List<Todo> readIdsAt(long[] ids, int from, int to, long version) {
+        List<Todo> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            VersionedTodo head = headOf(ids[i]);
+            Todo visible = head == null ? null : visibleAt(head, version);
+            if (visible != null) {
+                result.add(visible.copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds todos visible at a version that are only on disk, reading just the evicted
+     * IDs rather than the whole store. Evicted todos are not loaded back into memory.
+     * An ID changed after being reloaded is resolved in memory, which then holds every
+     * version a pinned reader can still see.
+     */
+    private void addEvictedAt(Set<Long> evictedIds, long version, List<Todo> result) {
+        Set<Long> seen = new HashSet<>();
+        for (Todo todo : result) {
+            seen.add(todo.getId());
+        }
+        for (Long id : evictedIds) {
+            if (seen.contains(id)) {
+                continue;
+            }
+            TodoStore.StoredTodo stored = writeBehind.load(id);
+            Todo visible;
+            if (stored != null && stored.version() <= version) {
+                visible = stored.todo();
+            } else {
+                VersionedTodo head = todos.get(id);
+                visible = head == null ? null : visibleAt(head, version);
+            }
+            if (visible != null) {
+                result.add(visible.copy());
+            }
+        }
+    }
+
+    private static Todo visibleAt(VersionedTodo head, long version) {
+        for (VersionedTodo node = head; node != null; node = node.previous) {
+            if (node.version <= version) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the newest version of a todo that has been published, skipping writes
+     * of an atomic change still in progress. If the chain ends before reaching a
+     * published version, the change may have been published and its history pruned
+     * since currentVersion was read, so the oldest remaining version is checked
+     * against the latest currentVersion instead.
+     */
+    private Todo committedValue(VersionedTodo head) {
+        long version = currentVersion;
+        VersionedTodo node = head;
+        while (node.version > version) {
+            if (node.previous == null) {
+                return node.version <= currentVersion ? node.value : null;
+            }
+            node = node.previous;
+        }
+        return node.value;
+    }
+
+    /**
+     * Installs a new version of a todo. Must hold the write lock; the version is
+     * published by {@link #unlockWrite()}.
+     */
+    private void commit(Long id, Todo value) {
+        long version = ++writeVersion;
+        VersionedTodo previous = todos.get(id);
+        VersionedTodo head = new VersionedTodo(version, value, previous);
+        if (previous != null) {
+            changeLog.remove(previous.version);
+        }
+        if (value != null) {
+            changeLog.put(version, id);
+        } else {
+            logTombstone(version, id);
+        }
+        if (previous == null) {
+            clock.add(id);
+        }
+        head.referenced = true;
+        todos.put(id, head);
+        unpublished.add(id);
+    }
+
+    /**
+     * Releases the write lock. Releasing the outermost hold publishes every version
+     * written under it at once, moves the written todos in the index and queues them
+     * for the store as one change, then drops history no reader needs anymore.
+     */
+    private void unlockWrite() {
+        try {
+            if (writeLock.getHoldCount() == 1 && !unpublished.isEmpty()) {
+                long published = currentVersion;
+                currentVersion = writeVersion;
+                Map<Long, WriteBehindStore.PendingWrite> change = writeBehind == null ? null : new HashMap<>();
+                for (Long id : unpublished) {
+                    VersionedTodo head = todos.get(id);
+                    if (head != null) {
+                        index.update(id, visibleAt(head, published), head.value);
+                        if (change != null) {
+                            change.put(id, new WriteBehindStore.PendingWrite(head.value, head.version));
+                        }
+                    }
+                }
+                if (change != null) {
+                    writeBehind.enqueue(change); // As a whole, so a crash never leaves half of an atomic change on disk
+                }
+                sweepExpiredSnapshots();
+                long lowWaterMark = lowWaterMark();
+                for (Long id : unpublished) {
+                    VersionedTodo head = todos.get(id);
+                    if (head != null && prune(id, head, lowWaterMark)) {
+                        retainedHistory.add(id);
+                    } else {
+                        retainedHistory.remove(id);
+                    }
+                }
+                unpublished.clear();
+            }
+            if (writeLock.getHoldCount() == 1 && retainedPrunePending) {
+                pruneRetainedHistory();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (writeBehind != null && !writeLock.isHeldByCurrentThread()) {
+            writeBehind.flushIfFull(); // After the commit is complete, so a failing store can't interrupt it
+        }
+    }
+
+    /**
+     * Expires abandoned snapshots from the write path, so their pins don't keep history
+     * growing until the next snapshot request. Must hold the write lock.
+     */
+    private void sweepExpiredSnapshots() {
+        if (openSnapshots.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextSnapshotSweepAt) {
+            nextSnapshotSweepAt = now + SNAPSHOT_SWEEP_INTERVAL_MILLIS;
+            expireSnapshots();
+        }
+    }
+
+    private void logTombstone(long version, Long id) {
+        tombstoneLog.put(version, id);
+        while (tombstoneLog.size() > tombstoneLogSize) {
+            Map.Entry<Long, Long> dropped = tombstoneLog.pollFirstEntry();
+            tombstonesTruncatedAt = dropped.getKey();
+        }
+    }
+
+    /**
+     * Drops versions no pinned reader can see. Must hold the write lock.
+     * @return true if the entry still keeps history for some reader
+     */
+    private boolean prune(Long id, VersionedTodo head, long lowWaterMark) {
+        VersionedTodo node = head;
+        while (node != null && node.version > lowWaterMark) {
+            node = node.previous;
+        }
+        if (node != null) {
+            node.previous = null;
+        }
+        if (node == head && head.value == null) {
+            todos.remove(id, head);
+            return false;
+        }
+        return head.previous != null || head.value == null;
+    }
+
+    private long pin() {
+        synchronized (pinnedVersions) {
+            long version = currentVersion;
+            pinnedVersions.merge(version, 1, Integer::sum);
+            return version;
+        }
+    }
+
+    /**
+     * Releases a pin. Retained history is only pruned when this was the last reader of
+     * the oldest pinned version, since no other release raises the low-water mark. If a
+     * writer holds the lock, including the caller inside {@link #atomically}, the prune
+     * is left to the next writer's {@link #unlockWrite()}.
+     */
+    private void unpin(long version) {
+        boolean raisedLowWaterMark;
+        synchronized (pinnedVersions) {
+            boolean oldest = !pinnedVersions.isEmpty() && pinnedVersions.firstKey() == version;
+            pinnedVersions.computeIfPresent(version, (v, readers) -> readers == 1 ? null : readers - 1);
+            raisedLowWaterMark = oldest && !pinnedVersions.containsKey(version);
+        }
+        if (!raisedLowWaterMark || retainedHistory.isEmpty()) {
+            return;
+        }
+        if (writeLock.isHeldByCurrentThread() || !writeLock.tryLock()) {
+            retainedPrunePending = true;
+            return;
+        }
+        try {
+            pruneRetainedHistory();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drops history of every todo that kept some for a reader. Must hold the write lock.
+     */
+    private void pruneRetainedHistory() {
+        retainedPrunePending = false;
+        long lowWaterMark = lowWaterMark();
+        for (Long id : retainedHistory) {
+            VersionedTodo head = todos.get(id);
+            if (head == null || !prune(id, head, lowWaterMark)) {
+                retainedHistory.remove(id);
+            }
+        }
+    }
+
+    private long lowWaterMark() {
+        synchronized (pinnedVersions) {
+            return pinnedVersions.isEmpty() ? currentVersion : pinnedVersions.firstKey();
+        }
+    }
+
+    // ========== STORE AND EVICTION ==========
+
+    /**
+     * @return the number of todo IDs currently held in memory, including deletions not yet reclaimed
+     */
+    int residentCount() {
+        return todos.size();
+    }
+
+    private void loadFromStore() {
+        TodoStore store = writeBehind.store();
+        currentVersion = store.maxVersion();
+        writeVersion = currentVersion;
+        tombstonesTruncatedAt = currentVersion; // deletions before the restart are unknown
+        liveCount = store.count();
+        store.forEach(stored -> {
+            index.update(stored.todo().getId(), null, stored.todo());
+            Long id = stored.todo().getId();
+            if (todos.size() < writeBehind.getCacheSize()) {
+                todos.put(id, new VersionedTodo(stored.version(), stored.todo(), null));
+                clock.add(id);
+            } else {
+                evicted.put(id, new EvictedTodo(stored.version(), stored.todo().getCreatedSeq()));
+            }
+        });
+        writeBehind.setAfterFlush(this::evictColdEntries);
+    }
+
+    /**
+     * Returns the newest version of a todo, loading it back from disk if it was evicted.
+     * IDs that were never evicted are answered from memory, and the disk read takes no
+     * lock; the loaded copy is installed only if the todo is still evicted at the
+     * version that was read, otherwise the lookup starts over.
+     */
+    private VersionedTodo headOf(Long id) {
+        while (true) {
+            VersionedTodo head = todos.get(id);
+            if (head != null) {
+                return head;
+            }
+            EvictedTodo evictedTodo = evicted.get(id);
+            if (evictedTodo == null) {
+                return null;
+            }
+            TodoStore.StoredTodo stored = writeBehind.load(id);
+            if (stored == null || stored.version() != evictedTodo.version()) {
+                if (evictedTodo.equals(evicted.get(id))) {
+                    return null; // Not on disk as recorded; treat as missing rather than spin
+                }
+                continue; // Reloaded, changed and evicted again in the meantime
+            }
+            VersionedTodo loaded = new VersionedTodo(stored.version(), stored.todo(), null);
+            head = todos.compute(id, (key, current) -> {
+                if (current != null || !evicted.remove(key, evictedTodo)) {
+                    return current;
+                }
+                return loaded;
+            });
+            if (head == loaded) {
+                clock.add(id);
+            }
+            if (head != null) {
+                return head;
+            }
+        }
+    }
+
+    /**
+     * Evicts cold entries down to the cache size. Runs after each write-behind flush.
+     * Only clean entries whose single version every reader can see are evicted, so
+     * their on-disk copy is exactly what any pinned snapshot would read.
+     */
+    private void evictColdEntries() {
+        int cacheSize = writeBehind.getCacheSize();
+        if (todos.size() <= cacheSize) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            long lowWaterMark = lowWaterMark();
+            int budget = clock.size();
+            while (todos.size() > cacheSize && budget-- > 0) {
+                Long id = clock.poll();
+                if (id == null) {
+                    break;
+                }
+                VersionedTodo head = todos.get(id);
+                if (head == null) {
+                    continue;
+                }
+                if (head.referenced) {
+                    head.referenced = false;
+                    clock.add(id);
+                } else if (head.value != null && head.previous == null && head.version <= lowWaterMark
+                        && writeBehind.pending(id) == null) {
+                    // Marked as evicted before it leaves the map, so a concurrent lookup always finds it in one of them
+                    todos.computeIfPresent(id, (key, current) -> {
+                        evicted.put(key, new EvictedTodo(current.version, current.value.getCreatedSeq()));
+                        return null;
+                    });
+                } else {
+                    clock.add(id);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * One version of a todo; a null value marks a deletion.
+     */
+    /**
+     * A live todo held only on disk: the version stored there, and its creation
+     * sequence so snapshots can be ordered without reading it back.
+     */
+    private record EvictedTodo(long version, long createdSeq) {
+    }
+
+    private static final class VersionedTodo {
+        private final long version;
+        private final Todo value;
+        private volatile VersionedTodo previous;
+        // Second-chance bit for CLOCK eviction
+        private volatile boolean referenced;
+
+        private VersionedTodo(long version, Todo value, VersionedTodo previous) {
+            this.version = version;
+            this.value = value;
+            this.previous = previous;
+        }
     }
 }
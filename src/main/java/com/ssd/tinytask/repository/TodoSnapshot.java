@@ -0,0 +1,56 @@
+package com.ssd.tinytask.repository;
+
+/**
+ * A pinned, point-in-time view of the repository.
+ * While a snapshot is open, the repository keeps every todo version visible at
+ * {@link #getVersion()} so that paginated reads always see the same state.
+ * The IDs visible at that version are listed once when the snapshot is opened, so each
+ * page only reads its own todos.
+ */
+public final class TodoSnapshot {
+
+    private final String token;
+    private final long version;
+    private final long[] ids;
+    private volatile long expiresAtMillis;
+
+    TodoSnapshot(String token, long version, long[] ids, long expiresAtMillis) {
+        this.token = token;
+        this.version = version;
+        this.ids = ids;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * @return the opaque token clients send back to reuse this snapshot
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * @return the repository version this snapshot is pinned to
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return how many todos the snapshot holds
+     */
+    public int getTotal() {
+        return ids.length;
+    }
+
+    long[] ids() {
+        return ids;
+    }
+
+    boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    void extendLease(long expiresAtMillis) {
+        this.expiresAtMillis = expiresAtMillis;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ssd.tinytask.repository;
+
+import com.ssd.tinytask.model.Todo;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Durable key-value storage for todos behind the in-memory repository.
+ * Implementations must allow reads concurrently with a batch write.
+ */
+public interface TodoStore extends AutoCloseable {
+
+    /**
+     * A persisted todo together with the repository version that wrote it
+     */
+    record StoredTodo(long version, Todo todo) {
+    }
+
+    /**
+     * @param id the todo ID
+     * @return the stored todo, or null if absent
+     */
+    StoredTodo load(Long id);
+
+    /**
+     * Visits every stored todo
+     * @param visitor receives each stored todo
+     */
+    void forEach(Consumer<StoredTodo> visitor);
+
+    /**
+     * Applies a batch atomically and durably. Todos that cannot be encoded are left
+     * out instead of failing the whole batch.
+     * @param upserts todos to insert or replace, by ID
+     * @param deletes IDs to remove
+     * @param version the highest repository version contained in the batch
+     * @return the IDs of the upserts that were left out, usually none
+     */
+    Set<Long> write(Map<Long, StoredTodo> upserts, Collection<Long> deletes, long version);
+
+    /**
+     * @return the number of stored todos
+     */
+    long count();
+
+    /**
+     * Durably records that IDs up to the given one may be in use, before any of them is written
+     * @param maxId the highest reserved ID; lower values than the recorded one are ignored
+     */
+    void reserveIds(long maxId);
+
+    /**
+     * @return the highest ID ever written or reserved, including deleted ones, or 0
+     */
+    long maxId();
+
+    /**
+     * @return the highest repository version ever written, or 0
+     */
+    long maxVersion();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,199 @@
+package com.ssd.tinytask.repository;
+
+import com.ssd.tinytask.model.Todo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind front of a {@link TodoStore}.
+ * Writes are queued per todo ID, so repeated writes to one todo coalesce into the
+ * latest one, and a background thread flushes them in batches. The queue is bounded:
+ * once it is full, the repository flushes synchronously after releasing its write lock
+ * instead of letting it grow. A todo the store cannot encode is set aside and kept in
+ * memory rather than retried, so it never blocks the writes after it.
+ */
+public class WriteBehindStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindStore.class);
+
+    private final TodoStore store;
+    private final int maxPending;
+    private final int cacheSize;
+    private final Map<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    // Held while a change is queued and while a flush copies the queue, so a batch never holds part of a change
+    private final Object queueLock = new Object();
+    // Writes the store rejected, kept so the repository never evicts their todos
+    private final Map<Long, PendingWrite> rejected = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private volatile Runnable afterFlush = () -> { };
+
+    public WriteBehindStore(TodoStore store, int maxPending, long flushIntervalMillis, int cacheSize) {
+        this.store = store;
+        this.maxPending = maxPending;
+        this.cacheSize = cacheSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "todo-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A queued write; a null todo marks a deletion. Compared by identity so a flush
+     * only dequeues the exact write it persisted.
+     */
+    static final class PendingWrite {
+        private final Todo todo;
+        private final long version;
+
+        PendingWrite(Todo todo, long version) {
+            this.todo = todo;
+            this.version = version;
+        }
+
+        Todo todo() {
+            return todo;
+        }
+
+        boolean isDelete() {
+            return todo == null;
+        }
+    }
+
+    /**
+     * Queues the writes of one published change, replacing any queued write for the same
+     * todos. The change is queued as a whole, so a flush persists all of it or none of it.
+     * Never flushes or fails, so it is safe to call while the repository holds its write lock.
+     * @param change the new state of each written todo by ID; the todos must not be mutated afterwards
+     */
+    void enqueue(Map<Long, PendingWrite> change) {
+        synchronized (queueLock) {
+            pending.putAll(change);
+        }
+    }
+
+    /**
+     * Flushes synchronously if the queue has reached its bound. Failures are logged
+     * and the writes stay queued, as with background flushes.
+     */
+    void flushIfFull() {
+        if (pending.size() >= maxPending) {
+            flushInBackground();
+        }
+    }
+
+    /**
+     * @param id the todo ID
+     * @return the queued or rejected write for the todo, or null if it has none
+     */
+    PendingWrite pending(Long id) {
+        PendingWrite write = pending.get(id);
+        return write != null ? write : rejected.get(id);
+    }
+
+    /**
+     * @return the number of todos whose latest write the store could not encode
+     */
+    int rejectedCount() {
+        return rejected.size();
+    }
+
+    TodoStore.StoredTodo load(Long id) {
+        return store.load(id);
+    }
+
+    /**
+     * Persists an ID high-water mark right away, bypassing the queue, so that the
+     * reserved IDs are safe to use once this returns
+     * @param maxId the highest reserved ID
+     */
+    void reserveIds(long maxId) {
+        store.reserveIds(maxId);
+    }
+
+    TodoStore store() {
+        return store;
+    }
+
+    /**
+     * @return how many todos the repository keeps in memory before evicting cold ones
+     */
+    int getCacheSize() {
+        return cacheSize;
+    }
+
+    void setAfterFlush(Runnable afterFlush) {
+        this.afterFlush = afterFlush;
+    }
+
+    /**
+     * Flushes every queued write, then lets the repository evict entries that became clean
+     */
+    public void flushNow() {
+        flush();
+        afterFlush.run();
+    }
+
+    private void flushInBackground() {
+        try {
+            flushNow();
+        } catch (RuntimeException e) {
+            // Keep the writes queued and retry on the next run
+            log.error("Write-behind flush failed, {} writes still queued", pending.size(), e);
+        }
+    }
+
+    private synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, PendingWrite> batch;
+        synchronized (queueLock) {
+            batch = new HashMap<>(pending);
+        }
+        Map<Long, TodoStore.StoredTodo> upserts = new HashMap<>();
+        List<Long> deletes = new ArrayList<>();
+        long version = 0;
+        for (Map.Entry<Long, PendingWrite> entry : batch.entrySet()) {
+            PendingWrite write = entry.getValue();
+            version = Math.max(version, write.version);
+            if (write.isDelete()) {
+                deletes.add(entry.getKey());
+            } else {
+                upserts.put(entry.getKey(), new TodoStore.StoredTodo(write.version, write.todo));
+            }
+        }
+        Set<Long> failed = store.write(upserts, deletes, version);
+        for (Map.Entry<Long, PendingWrite> entry : batch.entrySet()) {
+            if (failed.contains(entry.getKey())) {
+                log.error("Todo {} could not be written to the store and is kept in memory only", entry.getKey());
+                rejected.put(entry.getKey(), entry.getValue());
+            } else {
+                rejected.remove(entry.getKey());
+            }
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Stops the background thread, flushes what is left and closes the store
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        store.close();
+    }
+}
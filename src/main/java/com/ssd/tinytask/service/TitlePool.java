@@ -0,0 +1,142 @@
+package com.ssd.tinytask.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TitlePool canonicalizes todo titles so that equal titles share one String instance.
+ * Entries are weakly referenced: once no todo uses a title anymore, the GC reclaims it
+ * and its slot is freed. The pool is bounded; when full, new titles are returned as-is.
+ */
+@Component
+public class TitlePool {
+
+    private final Map<Object, WeakTitle> pool = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> reclaimed = new ReferenceQueue<>();
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TitlePool(@Value("${tinytask.title-pool.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given title, pooling it if it is new
+     * @param title the title to canonicalize
+     * @return an equal String, shared with other todos when possible
+     */
+    public String canonicalize(String title) {
+        if (title == null) {
+            return null;
+        }
+        expungeReclaimed();
+
+        WeakTitle pooled = pool.get(new LookupKey(title));
+        String canonical = pooled == null ? null : pooled.get();
+        if (canonical != null) {
+            hits.increment();
+            return canonical;
+        }
+
+        misses.increment();
+        if (pool.size() >= maxSize) {
+            return title;
+        }
+        WeakTitle created = new WeakTitle(title, reclaimed);
+        WeakTitle raced = pool.putIfAbsent(created, created);
+        if (raced != null) {
+            String winner = raced.get();
+            return winner != null ? winner : title;
+        }
+        return title;
+    }
+
+    /**
+     * @return the number of pooled titles, including ones not yet expunged after collection
+     */
+    public int size() {
+        return pool.size();
+    }
+
+    /**
+     * @return how many canonicalizations reused an already pooled title
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many canonicalizations found no pooled title
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private void expungeReclaimed() {
+        Object stale;
+        while ((stale = reclaimed.poll()) != null) {
+            pool.remove(stale);
+        }
+    }
+
+    /**
+     * Pool key and value: a weakly held title with its hash cached. A cleared entry is
+     * only equal to itself, so it can still be removed but never matches a lookup.
+     */
+    private static final class WeakTitle extends WeakReference<String> {
+        private final int hash;
+
+        private WeakTitle(String title, ReferenceQueue<String> queue) {
+            super(title, queue);
+            this.hash = title.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            String title = get();
+            if (title == null) {
+                return false;
+            }
+            if (other instanceof WeakTitle weak) {
+                return title.equals(weak.get());
+            }
+            return other instanceof LookupKey lookup && title.equals(lookup.title);
+        }
+    }
+
+    /**
+     * Strong, short-lived key used to probe the pool without allocating a reference object
+     */
+    private static final class LookupKey {
+        private final String title;
+
+        private LookupKey(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public int hashCode() {
+            return title.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof WeakTitle weak && title.equals(weak.get());
+        }
+    }
+}
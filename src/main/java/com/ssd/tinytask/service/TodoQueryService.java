@@ -0,0 +1,279 @@
+package com.ssd.tinytask.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssd.tinytask.dto.TodoGroup;
+import com.ssd.tinytask.dto.TodoQueryRequest;
+import com.ssd.tinytask.dto.TodoQueryResult;
+import com.ssd.tinytask.exception.InvalidQueryException;
+import com.ssd.tinytask.exception.QueryTimeoutException;
+import com.ssd.tinytask.model.Todo;
+import com.ssd.tinytask.repository.TodoRepository;
+import com.ssd.tinytask.tracing.SpanScope;
+import com.ssd.tinytask.tracing.TraceSpans;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TodoQueryService evaluates the filter/projection/grouping DSL of POST /api/todos/query
+ * over a consistent read of the repository.
+ * Stores at or above the parallel threshold are scanned with a parallel stream on the
+ * common fork-join pool, smaller ones sequentially. The deadline covers the whole
+ * evaluation: it is checked after loading the todos, for every scanned todo and around
+ * grouping and sorting, so a query stops with {@link QueryTimeoutException} once it
+ * runs too long. Only the first limit matching rows are kept, and they are projected
+ * while being streamed to the response.
+ */
+@Service
+public class TodoQueryService {
+
+    static final List<String> FIELDS = List.of("id", "title", "done", "parentId", "tags");
+    private static final Map<String, Function<Todo, Stream<String>>> GROUPINGS = Map.of(
+            "firstWord", todo -> Stream.of(firstWord(todo.getTitle())),
+            "done", todo -> Stream.of(String.valueOf(todo.isDone())),
+            "tag", todo -> todo.getTags().stream(),
+            "parentId", todo -> Stream.of(todo.getParentId() == null ? "none" : todo.getParentId().toString()));
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final TodoRepository todoRepository;
+    private final ObjectMapper objectMapper;
+    private final int parallelThreshold;
+    private final long timeoutMillis;
+    private final int maxResults;
+
+    public TodoQueryService(TodoRepository todoRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${tinytask.query.parallel-threshold:10000}") int parallelThreshold,
+                            @Value("${tinytask.query.timeout-ms:2000}") long timeoutMillis,
+                            @Value("${tinytask.query.max-results:100000}") int maxResults) {
+        this.todoRepository = todoRepository;
+        this.objectMapper = objectMapper;
+        this.parallelThreshold = parallelThreshold;
+        this.timeoutMillis = timeoutMillis;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Evaluates a query
+     * @param request the query
+     * @return at most limit matching todos in creation order with the fields to write, or the groups
+     *         ordered by descending count; matched counts every match either way
+     * @throws InvalidQueryException if the query uses unknown fields or groupings, or an invalid limit
+     * @throws QueryTimeoutException if evaluation exceeds the configured timeout
+     */
+    public TodoQueryResult query(TodoQueryRequest request) {
+        try (SpanScope ignored = TraceSpans.child("TodoQueryService.query")) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            List<String> fields = validateFields(request.getFields());
+            Function<Todo, Stream<String>> grouping = validateGrouping(request.getGroupBy());
+            int limit = validateLimit(request.getLimit());
+            Predicate<Todo> filter = compile(request.getFilter());
+
+            List<Todo> todos = todoRepository.findAll();
+            checkDeadline(deadline);
+            boolean parallel = todos.size() >= parallelThreshold;
+            Predicate<Todo> matches = todo -> {
+                checkDeadline(deadline);
+                return filter.test(todo);
+            };
+
+            if (grouping == null) {
+                // Only the first limit matches are kept; the rest are just counted
+                long matched;
+                List<Todo> rows;
+                if (parallel) {
+                    matched = todos.parallelStream().filter(matches).count();
+                    rows = todos.stream().filter(matches).limit(limit).toList();
+                } else {
+                    matched = 0;
+                    rows = new ArrayList<>(Math.min(limit, todos.size()));
+                    for (Todo todo : todos) {
+                        if (matches.test(todo) && ++matched <= limit) {
+                            rows.add(todo);
+                        }
+                    }
+                }
+                return new TodoQueryResult(matched, parallel, fields, rows, null);
+            }
+            LongAdder matched = new LongAdder();
+            Stream<String> keys = (parallel ? todos.parallelStream() : todos.stream())
+                    .filter(todo -> {
+                        if (!matches.test(todo)) {
+                            return false;
+                        }
+                        matched.increment();
+                        return true;
+                    })
+                    .flatMap(grouping);
+            Map<String, Long> counts = parallel
+                    ? keys.collect(Collectors.groupingByConcurrent(Function.identity(), Collectors.counting()))
+                    : keys.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            checkDeadline(deadline);
+            List<TodoGroup> groups = counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> new TodoGroup(entry.getKey(), entry.getValue()))
+                    .toList();
+            checkDeadline(deadline);
+            return new TodoQueryResult(matched.sum(), parallel, fields, null, groups);
+        }
+    }
+
+    private void checkDeadline(long deadline) {
+        if (System.nanoTime() - deadline > 0) {
+            throw new QueryTimeoutException(timeoutMillis);
+        }
+    }
+
+    /**
+     * Writes a result as JSON, flushing rows in batches so large results are streamed
+     * instead of being buffered as a whole
+     * @param result the evaluated query
+     * @param out the response body
+     */
+    public void writeResult(TodoQueryResult result, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeNumberField("matched", result.getMatched());
+            json.writeBooleanField("parallel", result.isParallel());
+            if (result.getGroups() != null) {
+                json.writeArrayFieldStart("groups");
+                for (TodoGroup group : result.getGroups()) {
+                    json.writeStartObject();
+                    json.writeStringField("key", group.getKey());
+                    json.writeNumberField("count", group.getCount());
+                    json.writeEndObject();
+                }
+            } else {
+                json.writeArrayFieldStart("rows");
+                int written = 0;
+                for (Todo todo : result.getRows()) {
+                    writeRow(json, todo, result.getFields());
+                    if (++written % FLUSH_EVERY_ROWS == 0) {
+                        json.flush();
+                    }
+                }
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeRow(JsonGenerator json, Todo todo, List<String> fields) throws IOException {
+        json.writeStartObject();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> json.writeNumberField("id", todo.getId());
+                case "title" -> json.writeStringField("title", todo.getTitle());
+                case "done" -> json.writeBooleanField("done", todo.isDone());
+                case "parentId" -> {
+                    if (todo.getParentId() == null) {
+                        json.writeNullField("parentId");
+                    } else {
+                        json.writeNumberField("parentId", todo.getParentId());
+                    }
+                }
+                default -> {
+                    json.writeArrayFieldStart("tags");
+                    for (String tag : todo.getTags()) {
+                        json.writeString(tag);
+                    }
+                    json.writeEndArray();
+                }
+            }
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * Builds one predicate from the filter conditions that are set
+     */
+    private static Predicate<Todo> compile(TodoQueryRequest.Filter filter) {
+        Predicate<Todo> predicate = todo -> true;
+        if (filter == null) {
+            return predicate;
+        }
+        if (filter.getDone() != null) {
+            boolean done = filter.getDone();
+            predicate = predicate.and(todo -> todo.isDone() == done);
+        }
+        if (filter.getTitleContains() != null) {
+            String needle = filter.getTitleContains();
+            predicate = predicate.and(todo -> containsIgnoreCase(todo.getTitle(), needle));
+        }
+        if (filter.getTag() != null) {
+            String tag = filter.getTag().trim().toLowerCase(Locale.ROOT);
+            predicate = predicate.and(todo -> todo.getTags().contains(tag));
+        }
+        if (filter.getParentId() != null) {
+            Long parentId = filter.getParentId();
+            predicate = predicate.and(todo -> parentId.equals(todo.getParentId()));
+        }
+        return predicate;
+    }
+
+    private static List<String> validateFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return FIELDS;
+        }
+        for (String field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new InvalidQueryException("Unknown field '" + field + "', expected one of " + FIELDS);
+            }
+        }
+        return List.copyOf(new LinkedHashSet<>(fields));
+    }
+
+    private static Function<Todo, Stream<String>> validateGrouping(String groupBy) {
+        if (groupBy == null) {
+            return null;
+        }
+        Function<Todo, Stream<String>> grouping = GROUPINGS.get(groupBy);
+        if (grouping == null) {
+            throw new InvalidQueryException("Unknown groupBy '" + groupBy + "', expected one of " + new TreeSet<>(GROUPINGS.keySet()));
+        }
+        return grouping;
+    }
+
+    private int validateLimit(Integer limit) {
+        if (limit == null) {
+            return maxResults;
+        }
+        if (limit < 1 || limit > maxResults) {
+            throw new InvalidQueryException("Limit must be between 1 and " + maxResults);
+        }
+        return limit;
+    }
+
+    /**
+     * Case-insensitive substring search without lower-casing (and copying) every title
+     */
+    private static boolean containsIgnoreCase(String text, String needle) {
+        for (int i = 0; i <= text.length() - needle.length(); i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String firstWord(String title) {
+        String trimmed = title.trim();
+        int end = 0;
+        while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end))) {
+            end++;
+        }
+        return trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+}
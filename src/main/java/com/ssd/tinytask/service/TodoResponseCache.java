@@ -0,0 +1,121 @@
+package com.ssd.tinytask.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssd.tinytask.exception.TodoNotFoundException;
+import com.ssd.tinytask.repository.TodoRepository;
+import com.ssd.tinytask.tracing.SpanScope;
+import com.ssd.tinytask.tracing.TraceSpans;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * TodoResponseCache serves the JSON of the hottest reads, GET /api/todos and
+ * GET /api/todos/{id}, as pre-serialized bytes.
+ * Every entry is tagged with the repository version it was built at, so the next
+ * mutation invalidates it without explicit hooks. Concurrent misses for the same
+ * response at the same version share one read and one serialization.
+ */
+@Component
+public class TodoResponseCache {
+
+    private final TodoService todoService;
+    private final TodoRepository todoRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+
+    private volatile CachedResponse allTodos;
+    private final Map<Long, CachedResponse> todosById = new ConcurrentHashMap<>();
+    private final SingleFlight<ResponseKey, CachedResponse> singleFlight = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TodoResponseCache(TodoService todoService,
+                             TodoRepository todoRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${tinytask.response-cache.max-entries:10000}") int maxEntries) {
+        this.todoService = todoService;
+        this.todoRepository = todoRepository;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the JSON array of all todos, as {@link TodoService#getAllTodos()} returns them
+     */
+    public byte[] getAllTodosJson() {
+        long version = todoRepository.currentVersion();
+        CachedResponse cached = allTodos;
+        if (cached != null && cached.version() == version) {
+            hits.increment();
+            return cached.json();
+        }
+        CachedResponse built = build(new ResponseKey(null, version), todoService::getAllTodos);
+        allTodos = built;
+        return built.json();
+    }
+
+    /**
+     * @param id the todo ID
+     * @return the JSON of the todo, as {@link TodoService#getTodoById(Long)} returns it
+     * @throws TodoNotFoundException if todo doesn't exist
+     */
+    public byte[] getTodoJson(Long id) {
+        long version = todoRepository.currentVersion();
+        CachedResponse cached = todosById.get(id);
+        if (cached != null && cached.version() == version) {
+            hits.increment();
+            return cached.json();
+        }
+        CachedResponse built = build(new ResponseKey(id, version), () -> todoService.getTodoById(id));
+        if (todosById.size() >= maxEntries) {
+            todosById.clear(); // Entries of older versions are dead anyway
+        }
+        todosById.put(id, built);
+        return built.json();
+    }
+
+    /**
+     * @return how many reads were served from cached bytes
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many reads had to build or wait for a response
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Builds a response once per key; the version read before building is a lower
+     * bound, so an entry is never served after a mutation it might not include.
+     */
+    private CachedResponse build(ResponseKey key, Supplier<Object> read) {
+        misses.increment();
+        return singleFlight.run(key, () -> {
+            Object body = read.get();
+            try (SpanScope ignored = TraceSpans.child("TodoResponseCache.serialize")) {
+                return new CachedResponse(key.version(), objectMapper.writeValueAsBytes(body));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize todos", e);
+            }
+        });
+    }
+
+    /**
+     * Identifies a response: a todo ID (null for the full list) at a repository version
+     */
+    private record ResponseKey(Long id, long version) {
+    }
+
+    private record CachedResponse(long version, byte[] json) {
+    }
+}
@@ -1,14 +1,24 @@
 package com.ssd.tinytask.service;
 
+import com.ssd.tinytask.dto.TodoChanges;
+import com.ssd.tinytask.dto.TodoPage;
 import com.ssd.tinytask.exception.InvalidTodoException;
+import com.ssd.tinytask.exception.SnapshotNotFoundException;
 import com.ssd.tinytask.exception.TodoNotFoundException;
+import com.ssd.tinytask.exception.TooManySnapshotsException;
 import com.ssd.tinytask.model.Todo;
 import com.ssd.tinytask.repository.TodoRepository;
+import com.ssd.tinytask.repository.TodoSnapshot;
+import com.ssd.tinytask.tracing.SpanScope;
+import com.ssd.tinytask.tracing.TraceSpans;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * TodoService contains the business logic for managing todos
@@ -18,15 +28,117 @@ import java.util.Optional;
 public class TodoService {
 
     private final TodoRepository todoRepository;
+    private final TitlePool titlePool;
 
     private static final int MIN_TITLE_LENGTH = 3;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_TAGS = 20;
+    private static final int MAX_TAG_LENGTH = 50;
 
     /**
      * Retrieves all todos
      * @return list of all todos
      */
     public List<Todo> getAllTodos() {
-        return todoRepository.findAll();
+        try (SpanScope ignored = TraceSpans.child("TodoService.getAllTodos")) {
+            return todoRepository.findAll();
+        }
+    }
+
+    /**
+     * Retrieves one page of todos from a consistent snapshot.
+     * The first request opens a snapshot; following pages reuse its token.
+     * @param snapshotToken the snapshot token, or null to open a new snapshot
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the requested page together with its snapshot token
+     * @throws SnapshotNotFoundException if the snapshot expired or doesn't exist
+     * @throws TooManySnapshotsException if a new snapshot is needed but too many are open
+     * @throws InvalidTodoException if page or size are out of range
+     */
+    public TodoPage getTodosPage(String snapshotToken, int page, int size) {
+        try (SpanScope ignored = TraceSpans.child("TodoService.getTodosPage")) {
+            validatePage(page, size);
+            TodoSnapshot snapshot = snapshotToken == null
+                    ? todoRepository.openSnapshot()
+                    : todoRepository.findSnapshot(snapshotToken)
+                            .orElseThrow(() -> new SnapshotNotFoundException(snapshotToken));
+
+            int total = snapshot.getTotal();
+            int from = (int) Math.min((long) page * size, total);
+            int to = Math.min(from + size, total);
+            return new TodoPage(todoRepository.findPage(snapshot, from, to), snapshot.getToken(), page, size, total);
+        }
+    }
+
+    /**
+     * Retrieves one page of a todo and its subtasks, breadth-first starting with the todo itself
+     * @param id the root todo ID
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the requested page; total counts the whole subtree
+     * @throws TodoNotFoundException if todo doesn't exist
+     * @throws InvalidTodoException if page or size are out of range
+     */
+    public TodoPage getSubtree(Long id, int page, int size) {
+        try (SpanScope ignored = TraceSpans.child("TodoService.getSubtree")) {
+            validatePage(page, size);
+            long[] ids = todoRepository.findSubtreeIds(id);
+            if (ids.length == 0) {
+                throw new TodoNotFoundException(id);
+            }
+            return pageOf(ids, page, size);
+        }
+    }
+
+    /**
+     * Retrieves one page of the todos carrying a tag, ordered by ID
+     * @param tag the tag, matched case-insensitively
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the requested page; total counts every todo with the tag
+     * @throws InvalidTodoException if page or size are out of range
+     */
+    public TodoPage getTodosByTag(String tag, int page, int size) {
+        try (SpanScope ignored = TraceSpans.child("TodoService.getTodosByTag")) {
+            validatePage(page, size);
+            return pageOf(todoRepository.findIdsByTag(normalizeTag(tag)), page, size);
+        }
+    }
+
+    /**
+     * Retrieves what changed since a client's last sync.
+     * A full list is returned instead when the client has nothing yet, its sequence number
+     * is from another epoch (e.g. before a restart), or the changes can no longer be
+     * reconstructed (e.g. the tombstone log was truncated).
+     * @param epoch the epoch returned by the client's previous sync, null for none
+     * @param since the sequence number returned by the client's previous sync, 0 for none
+     * @return the changes, with the epoch and sequence number to send next time
+     */
+    public TodoChanges getChangesSince(String epoch, long since) {
+        try (SpanScope ignored = TraceSpans.child("TodoService.getChangesSince")) {
+            String currentEpoch = todoRepository.epoch();
+            if (since <= 0 || !todoRepository.canServeChangesSince(epoch, since)) {
+                // The list is read at this version or later; replaying changes after it is harmless
+                long seq = todoRepository.currentVersion();
+                return new TodoChanges(currentEpoch, seq, true, todoRepository.findAll(), List.of());
+            }
+            long upTo = todoRepository.currentVersion();
+            return new TodoChanges(currentEpoch, upTo, false,
+                    todoRepository.findChangedSince(since, upTo),
+                    todoRepository.findDeletedSince(since, upTo));
+        }
+    }
+
+    /**
+     * Releases a snapshot opened by {@link #getTodosPage}
+     * @param snapshotToken the snapshot token
+     * @throws SnapshotNotFoundException if the snapshot expired or doesn't exist
+     */
+    public void releaseSnapshot(String snapshotToken) {
+        if (!todoRepository.releaseSnapshot(snapshotToken)) {
+            throw new SnapshotNotFoundException(snapshotToken);
+        }
     }
 
     /**
@@ -36,8 +148,10 @@ public class TodoService {
      * @throws TodoNotFoundException if todo doesn't exist
      */
     public Todo getTodoById(Long id) {
-        return todoRepository.findById(id)
-                .orElseThrow(() -> new TodoNotFoundException(id));
+        try (SpanScope ignored = TraceSpans.child("TodoService.getTodoById")) {
+            return todoRepository.findById(id)
+                    .orElseThrow(() -> new TodoNotFoundException(id));
+        }
     }
 
     /**
@@ -47,36 +161,73 @@ public class TodoService {
      * @throws InvalidTodoException if validation fails
      */
     public Todo createTodo(Todo todo) {
-        validateTodo(todo);
-        todo.setId(null); // Ensure it's a new todo
-        todo.setDone(false); // New todos are not done
-        return todoRepository.save(todo);
+        try (SpanScope ignored = TraceSpans.child("TodoService.createTodo")) {
+            validateTodo(todo);
+            todo.setTitle(titlePool.canonicalize(todo.getTitle().trim())); // Share repeated titles
+            todo.setTags(normalizeTags(todo.getTags()));
+            todo.setId(null); // Ensure it's a new todo
+            todo.setDone(false); // New todos are not done
+            if (todo.getParentId() == null) {
+                return todoRepository.save(todo);
+            }
+            // Check and insert together so the parent can't be deleted in between
+            return todoRepository.atomically(() -> {
+                if (!todoRepository.existsById(todo.getParentId())) {
+                    throw new InvalidTodoException("Parent todo not found with id: " + todo.getParentId());
+                }
+                return todoRepository.save(todo);
+            });
+        }
     }
 
     /**
-     * Toggles the done status of a todo
+     * Toggles the done status of a todo and sets all its subtasks to the same status.
+     * The whole subtree is updated as one atomic change.
      * @param id the todo ID
      * @return the updated todo
      * @throws TodoNotFoundException if todo doesn't exist
      */
     public Optional<Todo> toggleTodo(Long id) {
-        Optional<Todo> todoOpt = todoRepository.findById(id);
-        if (todoOpt.isEmpty()) {
-            return Optional.empty();
+        try (SpanScope ignored = TraceSpans.child("TodoService.toggleTodo")) {
+            return todoRepository.atomically(() -> {
+                Optional<Todo> todoOpt = todoRepository.findById(id);
+                if (todoOpt.isEmpty()) {
+                    return Optional.empty();
+                }
+
+                Todo todo = todoOpt.get();
+                boolean done = !todo.isDone();
+                todo.setDone(done);
+                Todo saved = todoRepository.save(todo);
+
+                long[] subtree = todoRepository.findSubtreeIds(id);
+                for (Todo subtask : todoRepository.findAllById(subtree, 1, subtree.length)) {
+                    if (subtask.isDone() != done) {
+                        subtask.setDone(done);
+                        todoRepository.save(subtask);
+                    }
+                }
+                return Optional.of(saved);
+            });
         }
-        
-        Todo todo = todoOpt.get();
-        todo.setDone(!todo.isDone());
-        return Optional.of(todoRepository.save(todo));
     }
 
     /**
-     * Deletes a todo by ID
+     * Deletes a todo by ID together with all its subtasks, as one atomic change
      * @param id the todo ID
      * @return true if deleted, false if not found
      */
     public boolean deleteTodo(Long id) {
-        return todoRepository.deleteById(id);
+        try (SpanScope ignored = TraceSpans.child("TodoService.deleteTodo")) {
+            return todoRepository.atomically(() -> {
+                long[] subtree = todoRepository.findSubtreeIds(id);
+                // Deepest subtasks first, which also keeps the index removals at the tail of each list
+                for (int i = subtree.length - 1; i > 0; i--) {
+                    todoRepository.deleteById(subtree[i]);
+                }
+                return todoRepository.deleteById(id);
+            });
+        }
     }
 
     /**
@@ -85,14 +236,64 @@ public class TodoService {
      * @throws InvalidTodoException if validation fails
      */
     private void validateTodo(Todo todo) {
-        if (todo == null) {
-            throw new InvalidTodoException("Todo cannot be null");
+        try (SpanScope ignored = TraceSpans.child("TodoService.validateTodo")) {
+            if (todo == null) {
+                throw new InvalidTodoException("Todo cannot be null");
+            }
+            if (todo.getTitle() == null || todo.getTitle().trim().isEmpty()) {
+                throw new InvalidTodoException("Title is required");
+            }
+            if (todo.getTitle().trim().length() < MIN_TITLE_LENGTH) {
+                throw new InvalidTodoException("Title must be at least " + MIN_TITLE_LENGTH + " characters");
+            }
+            if (todo.getTags().size() > MAX_TAGS) {
+                throw new InvalidTodoException("A todo can have at most " + MAX_TAGS + " tags");
+            }
+            for (String tag : todo.getTags()) {
+                if (tag == null || tag.trim().isEmpty()) {
+                    throw new InvalidTodoException("Tags must not be blank");
+                }
+                if (tag.trim().length() > MAX_TAG_LENGTH) {
+                    throw new InvalidTodoException("Tags must be at most " + MAX_TAG_LENGTH + " characters");
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates pagination parameters
+     * @throws InvalidTodoException if page or size are out of range
+     */
+    private void validatePage(int page, int size) {
+        if (page < 0) {
+            throw new InvalidTodoException("Page must not be negative");
         }
-        if (todo.getTitle() == null || todo.getTitle().trim().isEmpty()) {
-            throw new InvalidTodoException("Title is required");
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidTodoException("Page size must be between 1 and " + MAX_PAGE_SIZE);
         }
-        if (todo.getTitle().trim().length() < MIN_TITLE_LENGTH) {
-            throw new InvalidTodoException("Title must be at least " + MIN_TITLE_LENGTH + " characters");
+    }
+
+    /**
+     * Loads only the todos of the requested page from a list of IDs
+     */
+    private TodoPage pageOf(long[] ids, int page, int size) {
+        int from = (int) Math.min((long) page * size, ids.length);
+        int to = Math.min(from + size, ids.length);
+        return new TodoPage(todoRepository.findAllById(ids, from, to), null, page, size, ids.length);
+    }
+
+    /**
+     * Trims, lower-cases and de-duplicates tags, sharing repeated ones like titles
+     */
+    private List<String> normalizeTags(List<String> tags) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String tag : tags) {
+            normalized.add(titlePool.canonicalize(normalizeTag(tag)));
         }
+        return List.copyOf(normalized);
+    }
+
+    private static String normalizeTag(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
     }
 }
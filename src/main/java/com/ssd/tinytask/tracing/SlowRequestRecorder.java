@@ -0,0 +1,111 @@
+package com.ssd.tinytask.tracing;
+
+import com.ssd.tinytask.dto.SpanSummary;
+import com.ssd.tinytask.dto.TraceSummary;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory span processor that keeps the most recent sampled requests.
+ * Child spans are buffered per trace until the root span ends; the finished trace
+ * then goes into a fixed-size ring buffer, so memory stays bounded. When too many
+ * traces are in flight, the oldest one is dropped.
+ */
+public class SlowRequestRecorder implements SpanProcessor {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    static final int MAX_PENDING_TRACES = 10_000;
+
+    // Children by trace ID in insertion order, guarded by its own monitor
+    private final Map<String, List<SpanData>> pendingChildren = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<SpanData>> eldest) {
+            return size() > MAX_PENDING_TRACES;
+        }
+    };
+    private final AtomicReferenceArray<TraceSummary> recent;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public SlowRequestRecorder(int capacity) {
+        this.recent = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Returns the slowest of the recently recorded requests
+     * @param limit the maximum number of requests to return
+     * @return traced requests ordered from slowest to fastest
+     */
+    public List<TraceSummary> slowest(int limit) {
+        List<TraceSummary> traces = new ArrayList<>(recent.length());
+        for (int i = 0; i < recent.length(); i++) {
+            TraceSummary trace = recent.get(i);
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        traces.sort(Comparator.comparingDouble(TraceSummary::getDurationMillis).reversed());
+        return traces.subList(0, Math.min(limit, traces.size()));
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanData data = span.toSpanData();
+        List<SpanData> children;
+        synchronized (pendingChildren) {
+            if (data.getParentSpanContext().isValid()) {
+                pendingChildren.computeIfAbsent(data.getTraceId(), traceId -> new ArrayList<>()).add(data);
+                return;
+            }
+            children = pendingChildren.remove(data.getTraceId());
+        }
+        record(data, children == null ? List.of() : children);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        synchronized (pendingChildren) {
+            pendingChildren.clear();
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private void record(SpanData root, Collection<SpanData> children) {
+        List<SpanData> ordered = new ArrayList<>(children);
+        ordered.sort(Comparator.comparingLong(SpanData::getStartEpochNanos));
+        List<SpanSummary> spans = new ArrayList<>(ordered.size());
+        for (SpanData child : ordered) {
+            spans.add(new SpanSummary(child.getName(),
+                    (child.getStartEpochNanos() - root.getStartEpochNanos()) / NANOS_PER_MILLI,
+                    (child.getEndEpochNanos() - child.getStartEpochNanos()) / NANOS_PER_MILLI));
+        }
+        TraceSummary trace = new TraceSummary(root.getTraceId(), root.getName(),
+                Instant.ofEpochSecond(0, root.getStartEpochNanos()),
+                (root.getEndEpochNanos() - root.getStartEpochNanos()) / NANOS_PER_MILLI,
+                spans);
+        int slot = (int) (cursor.getAndIncrement() % recent.length());
+        recent.set(slot, trace);
+    }
+}
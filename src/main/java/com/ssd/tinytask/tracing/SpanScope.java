@@ -0,0 +1,28 @@
+package com.ssd.tinytask.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+
+/**
+ * A started span made current on this thread; closing it restores the parent and ends the span
+ */
+public final class SpanScope implements AutoCloseable {
+
+    static final SpanScope NOOP = new SpanScope(null, null);
+
+    private final Span span;
+    private final Scope scope;
+
+    SpanScope(Span span, Scope scope) {
+        this.span = span;
+        this.scope = scope;
+    }
+
+    @Override
+    public void close() {
+        if (span != null) {
+            scope.close();
+            span.end();
+        }
+    }
+}
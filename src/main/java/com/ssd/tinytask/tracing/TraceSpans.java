@@ -0,0 +1,49 @@
+package com.ssd.tinytask.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Entry point for hot-path instrumentation.
+ * Child spans are only created when the current request was sampled; otherwise
+ * {@link #child(String)} returns a shared no-op scope without allocating.
+ * Until tracing is configured, the tracer is a no-op, so plain unit tests need no setup.
+ */
+public final class TraceSpans {
+
+    private static final String INSTRUMENTATION_NAME = "tinytask";
+
+    private static volatile Tracer tracer = OpenTelemetry.noop().getTracer(INSTRUMENTATION_NAME);
+
+    private TraceSpans() {
+    }
+
+    /**
+     * Starts a child of the current span if, and only if, the current span is being recorded
+     * @param name the span name, e.g. {@code TodoService.createTodo}
+     * @return the scope to close when the traced work ends
+     */
+    public static SpanScope child(String name) {
+        if (!Span.current().isRecording()) {
+            return SpanScope.NOOP;
+        }
+        Span span = tracer.spanBuilder(name).startSpan();
+        return new SpanScope(span, span.makeCurrent());
+    }
+
+    /**
+     * Routes instrumentation to the configured tracer
+     * @param configured the application tracer
+     */
+    public static void install(Tracer configured) {
+        tracer = configured;
+    }
+
+    /**
+     * Restores the no-op tracer
+     */
+    public static void reset() {
+        tracer = OpenTelemetry.noop().getTracer(INSTRUMENTATION_NAME);
+    }
+}
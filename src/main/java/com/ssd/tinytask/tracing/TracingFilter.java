@@ -0,0 +1,97 @@
+package com.ssd.tinytask.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opens the root span of every traced request.
+ * The sampling decision is made here before anything else, so unsampled requests
+ * build no span and no span name, and all nested instrumentation short-circuits.
+ * For asynchronous requests the root span ends when the async processing completes.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final Tracer tracer;
+    private final double sampleRatio;
+
+    public TracingFilter(Tracer tracer, double sampleRatio) {
+        this.tracer = tracer;
+        this.sampleRatio = sampleRatio;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!sampled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Span span = tracer.spanBuilder(request.getMethod() + " " + request.getRequestURI())
+                .setSpanKind(SpanKind.SERVER)
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new EndOnComplete(span));
+            } else {
+                end(span, request, response);
+            }
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRatio >= 1 || (sampleRatio > 0 && ThreadLocalRandom.current().nextDouble() < sampleRatio);
+    }
+
+    private static void end(Span span, HttpServletRequest request, HttpServletResponse response) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            span.updateName(request.getMethod() + " " + route);
+        }
+        span.setAttribute("url.path", request.getRequestURI());
+        span.setAttribute("http.response.status_code", response.getStatus());
+        span.end();
+    }
+
+    /**
+     * Ends the root span of an asynchronous request once the response is complete
+     */
+    private static final class EndOnComplete implements AsyncListener {
+        private final Span span;
+
+        private EndOnComplete(Span span) {
+            this.span = span;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            end(span, (HttpServletRequest) event.getSuppliedRequest(), (HttpServletResponse) event.getSuppliedResponse());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
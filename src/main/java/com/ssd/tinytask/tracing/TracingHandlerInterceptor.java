@@ -0,0 +1,50 @@
+package com.ssd.tinytask.tracing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Wraps controller handling in a span named after the handler method.
+ * It covers argument resolution (JSON reading and bean validation), the controller
+ * call itself and writing the response body. For asynchronous handlers the span ends
+ * when the request thread hands over, since the span is current on that thread only;
+ * the root span still covers the asynchronous part.
+ */
+public class TracingHandlerInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = TracingHandlerInterceptor.class.getName() + ".scope";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            SpanScope scope = TraceSpans.child(
+                    handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+            if (scope != SpanScope.NOOP) {
+                request.setAttribute(SCOPE_ATTRIBUTE, scope);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        closeScope(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        closeScope(request);
+    }
+
+    private static void closeScope(HttpServletRequest request) {
+        Object scope = request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            ((SpanScope) scope).close();
+        }
+    }
+}
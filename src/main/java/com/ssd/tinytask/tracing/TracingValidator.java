@@ -0,0 +1,35 @@
+package com.ssd.tinytask.tracing;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Bean validation ({@code @Valid}) delegate that records each validation as a span of sampled requests
+ */
+public class TracingValidator implements SmartValidator {
+
+    private final SmartValidator delegate;
+
+    public TracingValidator(SmartValidator delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        try (SpanScope ignored = TraceSpans.child("BeanValidation.validate")) {
+            delegate.validate(target, errors);
+        }
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        try (SpanScope ignored = TraceSpans.child("BeanValidation.validate")) {
+            delegate.validate(target, errors, validationHints);
+        }
+    }
+}
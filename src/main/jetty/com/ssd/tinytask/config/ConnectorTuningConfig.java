@@ -0,0 +1,32 @@
+package com.ssd.tinytask.config;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 limits of the Jetty connector that Spring Boot has no properties for.
+ * Jetty defaults to 128 concurrent streams per h2c connection. Jetty runs streams on
+ * its shared thread pool, so max-concurrent-stream-execution is not used here.
+ * Only applies when HTTP/2 is enabled (server.http2.enabled=true).
+ */
+@Configuration
+public class ConnectorTuningConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<JettyServletWebServerFactory> http2LimitsCustomizer(
+            @Value("${tinytask.server.http2.max-concurrent-streams:128}") int maxConcurrentStreams) {
+        return factory -> factory.addServerCustomizers(server -> {
+            for (Connector connector : server.getConnectors()) {
+                HTTP2CServerConnectionFactory http2 = connector.getConnectionFactory(HTTP2CServerConnectionFactory.class);
+                if (http2 != null) {
+                    http2.setMaxConcurrentStreams(maxConcurrentStreams);
+                }
+            }
+        });
+    }
+}
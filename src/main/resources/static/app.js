@@ -41,6 +41,8 @@ const toastMessage = document.getElementById('toastMessage');
 
 let currentFilter = 'all';
 let allTasks = [];
+let changeSeq = 0; // Last change sequence applied to allTasks
+let changeEpoch = ''; // Server epoch changeSeq belongs to; a restart starts a new one
 
 // ========================================
 // INITIALIZATION
@@ -107,13 +109,13 @@ async function loadTasks() {
         showLoading(true);
         hideError();
         
-        const response = await fetch(API_URL);
+        const response = await fetch(`${API_URL}/changes?since=0`);
         
         if (!response.ok) {
             throw new Error('Failed to load tasks');
         }
         
-        allTasks = await response.json();
+        applyChanges(await response.json());
         renderFilteredTasks();
         updateAllStats(allTasks);
         
@@ -125,6 +127,40 @@ async function loadTasks() {
     }
 }
 
+async function syncTasks() {
+    try {
+        const response = await fetch(`${API_URL}/changes?since=${changeSeq}&epoch=${encodeURIComponent(changeEpoch)}`);
+        
+        if (!response.ok) {
+            throw new Error('Failed to sync tasks');
+        }
+        
+        applyChanges(await response.json());
+        renderFilteredTasks();
+        updateAllStats(allTasks);
+        
+    } catch (error) {
+        console.error('Error syncing tasks:', error);
+        await loadTasks();
+    }
+}
+
+function applyChanges(changes) {
+    if (changes.resync) {
+        // Server could not compute a delta: replace local state
+        allTasks = changes.upserts;
+    } else {
+        const tasksById = new Map(allTasks.map(task => [task.id, task]));
+        changes.upserts.forEach(task => tasksById.set(task.id, task));
+        changes.deleted.forEach(id => tasksById.delete(id));
+        allTasks = Array.from(tasksById.values());
+    }
+    // Upserts come in change order and IDs do not follow creation, so order by creation sequence
+    allTasks.sort((a, b) => a.createdSeq - b.createdSeq);
+    changeSeq = changes.seq;
+    changeEpoch = changes.epoch;
+}
+
 async function handleAddTask(e) {
     e.preventDefault();
     
@@ -155,7 +191,7 @@ async function handleAddTask(e) {
         taskInput.value = '';
         showSuccess();
         showToast('Task added successfully!');
-        await loadTasks();
+        await syncTasks();
         
     } catch (error) {
         console.error('Error creating task:', error);
@@ -175,7 +211,7 @@ async function handleToggleTask(id) {
         }
         
         showToast('Task status updated!');
-        await loadTasks();
+        await syncTasks();
         
     } catch (error) {
         console.error('Error toggling task:', error);
@@ -200,7 +236,7 @@ async function confirmDeleteTask(id) {
         }
         
         showToast('Task deleted successfully!');
-        await loadTasks();
+        await syncTasks();
         
     } catch (error) {
         console.error('Error deleting task:', error);
@@ -0,0 +1,33 @@
+package com.ssd.tinytask.config;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 limits of the Tomcat connector that Spring Boot has no properties for.
+ * Tomcat defaults to 100 concurrent streams per connection, of which only 20 execute
+ * at once, which throttles h2c clients that multiplex many requests over one connection.
+ * Only applies when HTTP/2 is enabled (server.http2.enabled=true).
+ */
+@Configuration
+public class ConnectorTuningConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> http2LimitsCustomizer(
+            @Value("${tinytask.server.http2.max-concurrent-streams:100}") int maxConcurrentStreams,
+            @Value("${tinytask.server.http2.max-concurrent-stream-execution:20}") int maxConcurrentStreamExecution) {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol http2) {
+                    http2.setMaxConcurrentStreams(maxConcurrentStreams);
+                    http2.setMaxConcurrentStreamExecution(maxConcurrentStreamExecution);
+                }
+            }
+        });
+    }
+}
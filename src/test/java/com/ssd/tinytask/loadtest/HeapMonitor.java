@@ -0,0 +1,76 @@
+package com.ssd.tinytask.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples heap usage and GC activity of the current JVM.
+ * Heap is measured as the sum of pool usage after the last collection, which
+ * tracks retained memory far better than the instantaneous used size.
+ */
+final class HeapMonitor implements AutoCloseable {
+
+    private final List<Sample> samples = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "heap-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long startMillis = System.currentTimeMillis();
+
+    void start(long intervalMillis) {
+        scheduler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void sample() {
+        long retained = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+                retained += pool.getCollectionUsage().getUsed();
+            }
+        }
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, gc.getCollectionCount());
+            collectionMillis += Math.max(0, gc.getCollectionTime());
+        }
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        samples.add(new Sample(System.currentTimeMillis() - startMillis, used, retained, collections, collectionMillis));
+    }
+
+    synchronized List<Sample> getSamples() {
+        return new ArrayList<>(samples);
+    }
+
+    /**
+     * @return growth of retained heap between the first and last quarter of the run, in bytes
+     */
+    synchronized long retainedGrowthBytes() {
+        if (samples.size() < 4) {
+            return 0;
+        }
+        int quarter = samples.size() / 4;
+        return average(samples.subList(samples.size() - quarter, samples.size()))
+                - average(samples.subList(0, quarter));
+    }
+
+    private static long average(List<Sample> window) {
+        return (long) window.stream().mapToLong(Sample::retainedBytes).average().orElse(0);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    record Sample(long elapsedMillis, long usedBytes, long retainedBytes, long gcCount, long gcMillis) {
+    }
+}
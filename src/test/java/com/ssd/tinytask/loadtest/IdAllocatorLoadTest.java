@@ -0,0 +1,98 @@
+package com.ssd.tinytask.loadtest;
+
+import com.ssd.tinytask.repository.IdAllocator;
+import com.ssd.tinytask.repository.MvStoreTodoStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmarks ID allocation under contention: a shared {@code AtomicLong.getAndIncrement}
+ * against per-thread ID blocks, in memory and with the high-water mark persisted to MVStore.
+ * Excluded from the default build; run with {@code mvn -Ploadtest test -Dtest=IdAllocatorLoadTest}.
+ */
+class IdAllocatorLoadTest {
+
+    private final int[] threadCounts = Arrays.stream(System.getProperty("loadtest.ids.threads", "64,128,256").split(","))
+            .mapToInt(count -> Integer.parseInt(count.trim()))
+            .toArray();
+    private final int idsPerThread = Integer.getInteger("loadtest.ids.perThread", 200_000);
+    private final int blockSize = Integer.getInteger("loadtest.ids.blockSize", 100);
+    private final int rounds = Integer.getInteger("loadtest.ids.rounds", 5);
+    private final LatencyReport report = new LatencyReport(System.getProperty("loadtest.label", "local"));
+
+    @Test
+    @DisplayName("Should allocate IDs faster from per-thread blocks than from a shared counter")
+    void shouldCompareAllocators(@TempDir Path dir) throws InterruptedException {
+        MvStoreTodoStore store = new MvStoreTodoStore(dir.resolve("ids.mv.db").toString());
+        try {
+            for (int threads : threadCounts) {
+                // Fresh allocators per round so every variant starts from the same state
+                double shared = best(threads, () -> new AtomicLong(1)::getAndIncrement);
+                double blocks = best(threads, () -> new IdAllocator(1, blockSize, maxId -> { })::next);
+                double persisted = best(threads, () -> new IdAllocator(store.maxId() + 1, blockSize, store::reserveIds)::next);
+
+                report.appendSummary(String.format(Locale.ROOT,
+                        "ids threads=%-4d shared-counter=%.1fM/s id-blocks(%d)=%.1fM/s id-blocks-persisted(%d)=%.1fM/s",
+                        threads, shared, blockSize, blocks, blockSize, persisted));
+                assertTrue(blocks > 0 && persisted > 0);
+            }
+            assertTrue(store.maxId() > 0);
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Runs a warm-up round, then returns the best of the measured rounds in million IDs per second
+     */
+    private double best(int threads, Supplier<LongSupplier> allocators) throws InterruptedException {
+        run(threads, allocators.get());
+        double best = 0;
+        for (int round = 0; round < rounds; round++) {
+            best = Math.max(best, run(threads, allocators.get()));
+        }
+        return best;
+    }
+
+    private double run(int threads, LongSupplier allocator) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder checksum = new LongAdder();
+        Thread[] writers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            writers[i] = new Thread(() -> {
+                long sum = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < idsPerThread; j++) {
+                    sum += allocator.getAsLong();
+                }
+                checksum.add(sum); // Keeps the allocations from being optimized away
+            }, "id-writer-" + i);
+            writers[i].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        long elapsed = System.nanoTime() - began;
+        assertTrue(checksum.sum() > 0);
+        return (double) threads * idsPerThread / elapsed * 1000;
+    }
+}
@@ -0,0 +1,102 @@
+package com.ssd.tinytask.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes load test results under {@code target/loadtest/<label>/}.
+ * Each step produces one HdrHistogram percentile distribution ({@code .hgrm}) per
+ * operation, in milliseconds, which can be compared across commits with the
+ * HdrHistogram plotter, plus a plain-text summary.
+ */
+final class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Path directory;
+
+    LatencyReport(String label) {
+        this.directory = Path.of("target", "loadtest", label);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the histograms of a step and appends its summary line
+     * @param name the step name used as file prefix, e.g. {@code ramp-c32}
+     * @param result the step result
+     */
+    void write(String name, LoadGenerator.StepResult result) {
+        for (Map.Entry<LoadGenerator.Operation, Histogram> entry : result.getLatencies().entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Path file = directory.resolve(name + "-" + entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        appendSummary(summarize(name, result));
+    }
+
+    /**
+     * Writes heap and GC samples of a soak run as CSV
+     */
+    void writeHeapSamples(String name, List<HeapMonitor.Sample> samples) {
+        StringBuilder csv = new StringBuilder("elapsed_ms,used_bytes,retained_bytes,gc_count,gc_ms\n");
+        for (HeapMonitor.Sample sample : samples) {
+            csv.append(sample.elapsedMillis()).append(',')
+                    .append(sample.usedBytes()).append(',')
+                    .append(sample.retainedBytes()).append(',')
+                    .append(sample.gcCount()).append(',')
+                    .append(sample.gcMillis()).append('\n');
+        }
+        try {
+            Files.writeString(directory.resolve(name + "-heap.csv"), csv);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void appendSummary(String line) {
+        System.out.println(line);
+        try {
+            Files.writeString(directory.resolve("summary.txt"), line + System.lineSeparator(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String summarize(String name, LoadGenerator.StepResult result) {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "%-12s c=%-4d req=%-8d err=%-6d rps=%-9.1f", name, result.getConcurrency(),
+                result.getRequests(), result.getErrors(), result.getThroughput()));
+        for (Map.Entry<LoadGenerator.Operation, Histogram> entry : result.getLatencies().entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getTotalCount() > 0) {
+                line.append(String.format(Locale.ROOT, " %s[p50=%.2fms p99=%.2fms max=%.2fms]",
+                        entry.getKey().name().toLowerCase(Locale.ROOT),
+                        histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                        histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                        histogram.getMaxValue() / MICROS_PER_MILLI));
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package com.ssd.tinytask.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load generator for {@code /api/todos}.
+ * Each worker thread issues one request at a time, picking the operation from the
+ * configured mix, and records its latency in microseconds per operation.
+ */
+final class LoadGenerator {
+
+    enum Operation { READ, CREATE, TOGGLE, DELETE }
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final URI todosUri;
+    private final LoadProfile profile;
+    private final HttpClient client;
+    private final ConcurrentLinkedDeque<Long> knownIds = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger liveTodos = new AtomicInteger();
+
+    LoadGenerator(URI baseUri, LoadProfile profile) {
+        this(baseUri, profile, HttpClient.Version.HTTP_1_1);
+    }
+
+    /**
+     * @param version HTTP_1_1 opens one connection per concurrent worker; HTTP_2 upgrades
+     *                cleartext connections to h2c and multiplexes the workers over them
+     */
+    LoadGenerator(URI baseUri, LoadProfile profile, HttpClient.Version version) {
+        this.todosUri = baseUri.resolve("/api/todos");
+        this.profile = profile;
+        this.client = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Drives the server with the given number of workers for the given duration
+     * @return latencies and error counts for the run
+     */
+    StepResult run(int concurrency, Duration duration) throws InterruptedException {
+        StepResult result = new StepResult(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long started = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    execute(profile.nextOperation(), result);
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(duration.toSeconds() + 30, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        result.elapsedNanos = System.nanoTime() - started;
+        return result;
+    }
+
+    private void execute(Operation operation, StepResult result) {
+        if (operation == Operation.CREATE && liveTodos.get() >= profile.getMaxTodos()) {
+            operation = Operation.DELETE;
+        }
+        Long id = null;
+        HttpRequest request;
+        switch (operation) {
+            case CREATE -> request = HttpRequest.newBuilder(todosUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"title\":\"Load task " + ThreadLocalRandom.current().nextInt(1000) + "\"}"))
+                    .build();
+            case TOGGLE -> {
+                id = knownIds.peekLast();
+                if (id == null) {
+                    return;
+                }
+                request = HttpRequest.newBuilder(URI.create(todosUri + "/" + id + "/toggle"))
+                        .PUT(HttpRequest.BodyPublishers.noBody())
+                        .build();
+            }
+            case DELETE -> {
+                id = knownIds.pollFirst();
+                if (id == null) {
+                    return;
+                }
+                request = HttpRequest.newBuilder(URI.create(todosUri + "/" + id)).DELETE().build();
+            }
+            default -> request = HttpRequest.newBuilder(todosUri).GET().build();
+        }
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            result.latencies.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            result.requests.increment();
+            if (response.statusCode() >= 400) {
+                result.errors.increment();
+            } else if (operation == Operation.CREATE) {
+                Matcher matcher = ID_PATTERN.matcher(response.body());
+                if (matcher.find()) {
+                    knownIds.addLast(Long.valueOf(matcher.group(1)));
+                    liveTodos.incrementAndGet();
+                }
+            } else if (operation == Operation.DELETE) {
+                liveTodos.decrementAndGet();
+            }
+        } catch (IOException e) {
+            result.errors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Outcome of one run at a fixed concurrency
+     */
+    static final class StepResult {
+        private final int concurrency;
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private long elapsedNanos;
+
+        private StepResult(int concurrency) {
+            this.concurrency = concurrency;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            }
+        }
+
+        int getConcurrency() {
+            return concurrency;
+        }
+
+        Map<Operation, Histogram> getLatencies() {
+            return latencies;
+        }
+
+        long getRequests() {
+            return requests.sum();
+        }
+
+        long getErrors() {
+            return errors.sum();
+        }
+
+        double getThroughput() {
+            return elapsedNanos == 0 ? 0 : getRequests() / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ssd.tinytask.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load test configuration, read from system properties so runs can be tuned
+ * from the command line, e.g. {@code mvn -Ploadtest test -Dloadtest.mix=70:20:5:5}.
+ */
+final class LoadProfile {
+
+    private final int readWeight;
+    private final int createWeight;
+    private final int toggleWeight;
+    private final int deleteWeight;
+    private final List<Integer> rampSteps;
+    private final Duration stepDuration;
+    private final int soakConcurrency;
+    private final Duration soakDuration;
+    private final Duration heapSampleInterval;
+    private final int maxTodos;
+    private final String label;
+
+    private LoadProfile(int[] mix, List<Integer> rampSteps, Duration stepDuration, int soakConcurrency,
+                        Duration soakDuration, Duration heapSampleInterval, int maxTodos, String label) {
+        this.readWeight = mix[0];
+        this.createWeight = mix[1];
+        this.toggleWeight = mix[2];
+        this.deleteWeight = mix[3];
+        this.rampSteps = rampSteps;
+        this.stepDuration = stepDuration;
+        this.soakConcurrency = soakConcurrency;
+        this.soakDuration = soakDuration;
+        this.heapSampleInterval = heapSampleInterval;
+        this.maxTodos = maxTodos;
+        this.label = label;
+    }
+
+    /**
+     * Supported properties and defaults:
+     * <ul>
+     *     <li>{@code loadtest.mix} read:create:toggle:delete weights, default {@code 60:20:15:5}</li>
+     *     <li>{@code loadtest.ramp} concurrency steps, default {@code 1,8,32,64}</li>
+     *     <li>{@code loadtest.stepSeconds} duration of each ramp step, default {@code 10}</li>
+     *     <li>{@code loadtest.soak.concurrency} default {@code 16}</li>
+     *     <li>{@code loadtest.soak.minutes} default {@code 2}</li>
+     *     <li>{@code loadtest.soak.sampleSeconds} heap/GC sampling interval, default {@code 5}</li>
+     *     <li>{@code loadtest.maxTodos} creates turn into deletes above this size, default {@code 5000}</li>
+     *     <li>{@code loadtest.label} report directory name, e.g. a commit hash, default {@code local}</li>
+     * </ul>
+     */
+    static LoadProfile fromSystemProperties() {
+        int[] mix = Arrays.stream(System.getProperty("loadtest.mix", "60:20:15:5").split(":"))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        if (mix.length != 4 || Arrays.stream(mix).anyMatch(weight -> weight < 0) || Arrays.stream(mix).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix must be four non-negative weights read:create:toggle:delete");
+        }
+        List<Integer> rampSteps = Arrays.stream(System.getProperty("loadtest.ramp", "1,8,32,64").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .toList();
+        return new LoadProfile(
+                mix,
+                rampSteps,
+                Duration.ofSeconds(Long.getLong("loadtest.stepSeconds", 10)),
+                Integer.getInteger("loadtest.soak.concurrency", 16),
+                Duration.ofMinutes(Long.getLong("loadtest.soak.minutes", 2)),
+                Duration.ofSeconds(Long.getLong("loadtest.soak.sampleSeconds", 5)),
+                Integer.getInteger("loadtest.maxTodos", 5000),
+                System.getProperty("loadtest.label", "local"));
+    }
+
+    /**
+     * Picks the next operation according to the configured mix
+     */
+    LoadGenerator.Operation nextOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(readWeight + createWeight + toggleWeight + deleteWeight);
+        if (roll < readWeight) {
+            return LoadGenerator.Operation.READ;
+        }
+        roll -= readWeight;
+        if (roll < createWeight) {
+            return LoadGenerator.Operation.CREATE;
+        }
+        roll -= createWeight;
+        return roll < toggleWeight ? LoadGenerator.Operation.TOGGLE : LoadGenerator.Operation.DELETE;
+    }
+
+    List<Integer> getRampSteps() {
+        return rampSteps;
+    }
+
+    Duration getStepDuration() {
+        return stepDuration;
+    }
+
+    int getSoakConcurrency() {
+        return soakConcurrency;
+    }
+
+    Duration getSoakDuration() {
+        return soakDuration;
+    }
+
+    Duration getHeapSampleInterval() {
+        return heapSampleInterval;
+    }
+
+    int getMaxTodos() {
+        return maxTodos;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    String describeMix() {
+        return "read=" + readWeight + " create=" + createWeight + " toggle=" + toggleWeight + " delete=" + deleteWeight;
+    }
+}
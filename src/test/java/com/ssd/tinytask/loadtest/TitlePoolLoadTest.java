@@ -0,0 +1,81 @@
+package com.ssd.tinytask.loadtest;
+
+import com.ssd.tinytask.model.Todo;
+import com.ssd.tinytask.repository.TodoRepository;
+import com.ssd.tinytask.service.TitlePool;
+import com.ssd.tinytask.service.TodoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the retained heap of a repository filled with recurring titles, with and
+ * without the title pool. Heap is read after full collections, so run it without
+ * {@code -XX:+DisableExplicitGC}.
+ * Excluded from the default build; run with {@code mvn -Ploadtest test -Dtest=TitlePoolLoadTest}.
+ */
+class TitlePoolLoadTest {
+
+    private static final List<String> RECURRING_TITLES = List.of(
+            "Daily standup", "Review PRs", "Answer email", "Weekly planning", "Update Jira board",
+            "Deploy to staging", "Write release notes", "1:1 with manager", "Team retrospective", "Check CI pipeline");
+    private static final double BYTES_PER_MIB = 1024.0 * 1024.0;
+
+    private final int todos = Integer.getInteger("loadtest.titles.todos", 500_000);
+    private final int uniquePercent = Integer.getInteger("loadtest.titles.uniquePercent", 10);
+    private final LatencyReport report = new LatencyReport(System.getProperty("loadtest.label", "local"));
+
+    @Test
+    @DisplayName("Should retain less heap with the title pool on a repetitive dataset")
+    void shouldRetainLessHeapWithPool() {
+        // Given: a pool of size 0 never admits a title, which is the same as having no pool
+        long withoutPool = retainedBytes(new TitlePool(0));
+        long withPool = retainedBytes(new TitlePool(10_000));
+
+        // Then
+        report.appendSummary(String.format(Locale.ROOT,
+                "title-pool todos=%d unique=%d%% retained without pool=%.1fMiB with pool=%.1fMiB saved=%.1f%%",
+                todos, uniquePercent, withoutPool / BYTES_PER_MIB, withPool / BYTES_PER_MIB,
+                100.0 * (withoutPool - withPool) / withoutPool));
+        assertTrue(withPool < withoutPool);
+    }
+
+    /**
+     * Fills a fresh repository and returns how much heap it retains
+     */
+    private long retainedBytes(TitlePool pool) {
+        long before = usedHeapAfterGc();
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, pool);
+        for (int i = 0; i < todos; i++) {
+            String title = i % 100 < uniquePercent
+                    ? "Fix bug #" + i
+                    : RECURRING_TITLES.get(i % RECURRING_TITLES.size());
+            // A fresh copy with its own byte array, like a title deserialized from a request body
+            service.createTodo(new Todo(new String(title.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8)));
+        }
+        long after = usedHeapAfterGc();
+        assertEquals(todos, repository.count());
+        Reference.reachabilityFence(repository);
+        return after - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
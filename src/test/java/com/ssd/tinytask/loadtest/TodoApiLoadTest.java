@@ -0,0 +1,43 @@
+package com.ssd.tinytask.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ramped load test for the REST API against an embedded server.
+ * Excluded from the default build; run with {@code mvn -Ploadtest test -Dtest=TodoApiLoadTest}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TodoApiLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("Should sustain the configured mix at every ramp step")
+    void shouldSustainMixAtEveryRampStep() throws InterruptedException {
+        // Given
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), profile);
+        LatencyReport report = new LatencyReport(profile.getLabel());
+        report.appendSummary("ramp " + profile.describeMix() + " step=" + profile.getStepDuration());
+
+        // Warm up JIT and connection pools before measuring
+        generator.run(profile.getRampSteps().get(0), profile.getStepDuration());
+
+        for (int concurrency : profile.getRampSteps()) {
+            // When
+            LoadGenerator.StepResult result = generator.run(concurrency, profile.getStepDuration());
+            report.write("ramp-c" + concurrency, result);
+
+            // Then
+            assertTrue(result.getRequests() > 0, "No requests completed at concurrency " + concurrency);
+        }
+    }
+}
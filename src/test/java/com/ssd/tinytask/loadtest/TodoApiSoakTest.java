@@ -0,0 +1,56 @@
+package com.ssd.tinytask.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Soak test for the REST API: constant concurrency for a long period while heap
+ * and GC are sampled. The generator and the server share a JVM, so heap numbers
+ * include the generator's own (bounded) footprint.
+ * Run with {@code mvn -Ploadtest test -Dtest=TodoApiSoakTest -Dloadtest.soak.minutes=120}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TodoApiSoakTest {
+
+    private static final int SOAK_WINDOWS = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("Should keep retained heap stable under sustained mixed traffic")
+    void shouldKeepRetainedHeapStable() throws InterruptedException {
+        // Given
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), profile);
+        LatencyReport report = new LatencyReport(profile.getLabel());
+        long maxGrowthBytes = Long.getLong("loadtest.soak.maxHeapGrowthMb", 64) * 1024 * 1024;
+        Duration window = profile.getSoakDuration().dividedBy(SOAK_WINDOWS);
+        report.appendSummary("soak " + profile.describeMix() + " c=" + profile.getSoakConcurrency()
+                + " duration=" + profile.getSoakDuration());
+
+        // When
+        try (HeapMonitor monitor = new HeapMonitor()) {
+            monitor.start(profile.getHeapSampleInterval().toMillis());
+            for (int i = 0; i < SOAK_WINDOWS; i++) {
+                LoadGenerator.StepResult result = generator.run(profile.getSoakConcurrency(), window);
+                report.write("soak-w" + i, result);
+            }
+            monitor.sample();
+            report.writeHeapSamples("soak", monitor.getSamples());
+            long growth = monitor.retainedGrowthBytes();
+            report.appendSummary("soak retained heap growth: " + growth / 1024 + " KiB");
+
+            // Then
+            assertTrue(growth < maxGrowthBytes,
+                    "Retained heap grew by " + growth / (1024 * 1024) + " MiB during the soak run");
+        }
+    }
+}
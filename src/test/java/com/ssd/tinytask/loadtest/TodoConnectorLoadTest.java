@@ -0,0 +1,115 @@
+package com.ssd.tinytask.loadtest;
+
+import com.ssd.tinytask.TinytaskApplication;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the default connector settings with the {@code prod} server profile at
+ * high connection counts. Each variant starts the application on a random port and
+ * is driven with the same mix and ramp, so reports of one run are directly comparable.
+ * Excluded from the default build; run with
+ * {@code mvn -Ploadtest test -Dtest=TodoConnectorLoadTest}, adding {@code -Djetty}
+ * to benchmark the Jetty connector instead of Tomcat. Variants run in the order of
+ * {@code loadtest.connector.variants}, after a discarded warm-up of
+ * {@code loadtest.connector.warmupSeconds}.
+ */
+class TodoConnectorLoadTest {
+
+    /**
+     * A server configuration and the protocol the clients speak to it
+     */
+    private record Variant(String name, String profile, HttpClient.Version version) {
+    }
+
+    private static final List<Variant> VARIANTS = List.of(
+            new Variant("default-h1", null, HttpClient.Version.HTTP_1_1),
+            new Variant("prod-h1", "prod", HttpClient.Version.HTTP_1_1),
+            new Variant("prod-h2c", "prod", HttpClient.Version.HTTP_2));
+
+    @Test
+    @DisplayName("Should serve every connection count with each connector configuration")
+    void shouldServeHighConnectionCounts() throws InterruptedException {
+        // Given
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        List<Integer> connections = Arrays.stream(System.getProperty("loadtest.connector.ramp", "64,256,512").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .toList();
+        List<Variant> variants = Arrays.stream(System.getProperty("loadtest.connector.variants",
+                        "default-h1,prod-h1,prod-h2c").split(","))
+                .map(String::trim)
+                .map(TodoConnectorLoadTest::variant)
+                .toList();
+        String server = Boolean.getBoolean("jetty") ? "jetty" : "tomcat";
+        LatencyReport report = new LatencyReport(profile.getLabel());
+        report.appendSummary("connector " + server + " " + profile.describeMix()
+                + " step=" + profile.getStepDuration() + " connections=" + connections);
+
+        warmUp(profile, connections.get(connections.size() - 1));
+
+        for (Variant variant : variants) {
+            ConfigurableApplicationContext context = start(variant);
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), profile, variant.version());
+
+                // Warm up JIT, thread pools and connections at the highest count before measuring
+                generator.run(connections.get(connections.size() - 1), profile.getStepDuration());
+
+                for (int concurrency : connections) {
+                    // When
+                    LoadGenerator.StepResult result = generator.run(concurrency, profile.getStepDuration());
+                    report.write(server + "-" + variant.name() + "-c" + concurrency, result);
+
+                    // Then
+                    assertTrue(result.getRequests() > 0, "No requests completed for " + variant.name() + " at " + concurrency);
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Runs a throwaway server so JIT compilation does not penalize the first variant
+     */
+    private static void warmUp(LoadProfile profile, int concurrency) throws InterruptedException {
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.connector.warmupSeconds", 30));
+        ConfigurableApplicationContext context = start(VARIANTS.get(0));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            new LoadGenerator(URI.create("http://localhost:" + port), profile).run(concurrency, duration);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Variant variant(String name) {
+        return VARIANTS.stream()
+                .filter(variant -> variant.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown connector variant " + name));
+    }
+
+    private static ConfigurableApplicationContext start(Variant variant) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(TinytaskApplication.class)
+                // Sampling differs between profiles; keep it out of the comparison
+                .properties("server.port=0", "tinytask.tracing.enabled=false");
+        if (variant.profile() != null) {
+            builder.profiles(variant.profile());
+        }
+        return builder.run();
+    }
+}
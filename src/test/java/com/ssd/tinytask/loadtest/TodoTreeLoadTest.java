@@ -0,0 +1,119 @@
+package com.ssd.tinytask.loadtest;
+
+import com.ssd.tinytask.dto.TodoPage;
+import com.ssd.tinytask.model.Todo;
+import com.ssd.tinytask.repository.TodoRepository;
+import com.ssd.tinytask.service.TitlePool;
+import com.ssd.tinytask.service.TodoService;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmarks subtree reads and cascading toggles on deep and wide task trees,
+ * in process against the service layer.
+ * Excluded from the default build; run with {@code mvn -Ploadtest test -Dtest=TodoTreeLoadTest}.
+ */
+class TodoTreeLoadTest {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final int depth = Integer.getInteger("loadtest.tree.depth", 10_000);
+    private final int width = Integer.getInteger("loadtest.tree.width", 100_000);
+    private final int iterations = Integer.getInteger("loadtest.tree.iterations", 50);
+    private final LatencyReport report = new LatencyReport(System.getProperty("loadtest.label", "local"));
+
+    @Test
+    @DisplayName("Should read and toggle a deep chain of subtasks")
+    void shouldHandleDeepTree() {
+        // Given: every todo is the only subtask of the previous one
+        TodoService service = newService();
+        Todo root = service.createTodo(new Todo("Deep root"));
+        Todo parent = root;
+        long start = System.nanoTime();
+        for (int i = 1; i < depth; i++) {
+            parent = service.createTodo(subtaskOf(parent, "Level " + i));
+        }
+        report.appendSummary(String.format(Locale.ROOT, "tree-deep   build %d todos in %.1fms",
+                depth, (System.nanoTime() - start) / 1e6));
+
+        // When & Then
+        measure("tree-deep", root, depth, service);
+    }
+
+    @Test
+    @DisplayName("Should read and toggle a wide tree of subtasks")
+    void shouldHandleWideTree() {
+        // Given: one todo with every other todo as direct subtask
+        TodoService service = newService();
+        Todo root = service.createTodo(new Todo("Wide root"));
+        long start = System.nanoTime();
+        for (int i = 1; i < width; i++) {
+            service.createTodo(subtaskOf(root, "Child " + i));
+        }
+        report.appendSummary(String.format(Locale.ROOT, "tree-wide   build %d todos in %.1fms",
+                width, (System.nanoTime() - start) / 1e6));
+
+        // When & Then
+        measure("tree-wide", root, width, service);
+    }
+
+    private void measure(String name, Todo root, int size, TodoService service) {
+        int lastPage = (size - 1) / 500;
+        Histogram firstPage = time(() -> {
+            TodoPage page = service.getSubtree(root.getId(), 0, 500);
+            assertEquals(size, page.getTotal());
+            return page.getItems().size();
+        });
+        Histogram deepestPage = time(() -> service.getSubtree(root.getId(), lastPage, 500).getItems().size());
+        Histogram toggle = time(() -> service.toggleTodo(root.getId()).orElseThrow().isDone() ? 1 : 0);
+
+        List<Todo> leaves = service.getSubtree(root.getId(), lastPage, 500).getItems();
+        boolean rootDone = service.getTodoById(root.getId()).isDone();
+        assertEquals(rootDone, leaves.get(leaves.size() - 1).isDone(), "Cascade must reach the last subtask");
+
+        report.appendSummary(String.format(Locale.ROOT, "%-11s n=%-7d %s %s %s", name, size,
+                describe("subtree-first-page", firstPage), describe("subtree-last-page", deepestPage),
+                describe("cascade-toggle", toggle)));
+    }
+
+    /**
+     * Runs an operation a few times to warm up, then records each run in microseconds
+     */
+    private Histogram time(LongSupplier operation) {
+        Histogram histogram = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        for (int i = 0; i < Math.max(iterations / 5, 1); i++) {
+            operation.getAsLong();
+        }
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.getAsLong();
+            histogram.recordValue(Math.min((System.nanoTime() - start) / 1000, histogram.getHighestTrackableValue()));
+        }
+        return histogram;
+    }
+
+    private static String describe(String operation, Histogram histogram) {
+        return String.format(Locale.ROOT, "%s[p50=%.2fms p99=%.2fms max=%.2fms]", operation,
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static TodoService newService() {
+        return new TodoService(new TodoRepository(), new TitlePool(10_000));
+    }
+
+    private static Todo subtaskOf(Todo parent, String title) {
+        Todo subtask = new Todo(title);
+        subtask.setParentId(parent.getId());
+        return subtask;
+    }
+}
@@ -0,0 +1,166 @@
+package com.ssd.tinytask.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IdAllocator
+ */
+class IdAllocatorTest {
+
+    @Test
+    @DisplayName("Should hand out unique IDs across threads")
+    void shouldHandOutUniqueIdsAcrossThreads() throws Exception {
+        // Given
+        int threads = 16;
+        int idsPerThread = 10_000;
+        IdAllocator allocator = new IdAllocator(1, 64, maxId -> { });
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                writers.add(executor.submit(() -> {
+                    for (int j = 0; j < idsPerThread; j++) {
+                        ids.add(allocator.next());
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertEquals(threads * idsPerThread, ids.size());
+        assertTrue(allocator.highWaterMark() >= threads * idsPerThread);
+    }
+
+    @Test
+    @DisplayName("Should keep handing out IDs while the next range is reserved in the background")
+    void shouldReserveAheadInBackground() {
+        // Given
+        long range = IdAllocator.BLOCKS_PER_RESERVATION;
+        List<Long> reservations = new ArrayList<>();
+        Queue<Runnable> queued = new ArrayDeque<>();
+        AtomicBoolean runNow = new AtomicBoolean(true);
+        IdAllocator allocator = new IdAllocator(1, 1, reservations::add, task -> {
+            if (runNow.get()) {
+                task.run();
+            } else {
+                queued.add(task);
+            }
+        });
+        assertEquals(1, allocator.next());
+        runNow.set(false);
+
+        // When: the rest of the first range is used while the next one is still being reserved
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < range; i++) {
+            ids.add(allocator.next());
+        }
+
+        // Then
+        assertEquals(2, ids.get(0));
+        assertEquals(range + 1, ids.get(ids.size() - 1));
+        assertEquals(List.of(range + 1), reservations);
+        assertEquals(range + 1, allocator.highWaterMark());
+        assertEquals(1, queued.size());
+        queued.poll().run();
+        assertEquals(List.of(range + 1, 2 * range + 1), reservations);
+        assertEquals(2 * range + 1, allocator.highWaterMark());
+    }
+
+    @Test
+    @DisplayName("Should widen the reserved range when writers outrun the reservations")
+    void shouldGrowRangeWhenOutrun() throws Exception {
+        // Given: every reservation takes far longer than handing out a range of IDs
+        List<Long> reservations = new CopyOnWriteArrayList<>();
+        ExecutorService slowStore = Executors.newSingleThreadExecutor();
+        IdAllocator allocator = new IdAllocator(1, 1, maxId -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reservations.add(maxId);
+        }, slowStore);
+
+        // When
+        try {
+            for (int i = 0; i < 1000; i++) {
+                allocator.next();
+            }
+        } finally {
+            slowStore.shutdownNow();
+        }
+
+        // Then
+        long widest = 0;
+        for (int i = 1; i < reservations.size(); i++) {
+            widest = Math.max(widest, reservations.get(i) - reservations.get(i - 1));
+        }
+        assertTrue(widest > IdAllocator.BLOCKS_PER_RESERVATION, "reservations: " + reservations);
+        assertTrue(reservations.size() < 1000 / IdAllocator.BLOCKS_PER_RESERVATION);
+    }
+
+    @Test
+    @DisplayName("Should fail when IDs cannot be reserved and retry on the next call - Negative scenario")
+    void shouldRetryFailedReservation() {
+        // Given
+        AtomicBoolean failing = new AtomicBoolean(true);
+        IdAllocator allocator = new IdAllocator(1, 1, maxId -> {
+            if (failing.get()) {
+                throw new IllegalStateException("disk full");
+            }
+        }, Runnable::run);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, allocator::next);
+        failing.set(false);
+        assertEquals(2, allocator.next());
+        assertEquals(2 + IdAllocator.BLOCKS_PER_RESERVATION, allocator.highWaterMark());
+    }
+
+    @Test
+    @DisplayName("Should continue above the persisted high-water mark after a restart")
+    void shouldNotReuseIdsAfterRestart(@TempDir Path dir) {
+        // Given: IDs were reserved but no todo using them was ever written
+        String file = dir.resolve("todos.mv.db").toString();
+        MvStoreTodoStore store = new MvStoreTodoStore(file);
+        IdAllocator allocator = new IdAllocator(store.maxId() + 1, 1, store::reserveIds);
+        long lastUsed = allocator.next();
+        store.close();
+
+        // When
+        MvStoreTodoStore reopened = new MvStoreTodoStore(file);
+        try {
+            IdAllocator restarted = new IdAllocator(reopened.maxId() + 1, 1, reopened::reserveIds);
+
+            // Then
+            long reservedIds = 1 + IdAllocator.BLOCKS_PER_RESERVATION;
+            assertEquals(1, lastUsed);
+            assertEquals(reservedIds + 1, restarted.next());
+            reopened.reserveIds(reservedIds);
+            assertTrue(reopened.maxId() > reservedIds);
+        } finally {
+            reopened.close();
+        }
+    }
+}
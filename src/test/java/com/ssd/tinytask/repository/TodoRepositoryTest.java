@@ -1,12 +1,18 @@
 package com.ssd.tinytask.repository;
 
+import com.ssd.tinytask.exception.SnapshotNotFoundException;
+import com.ssd.tinytask.exception.TooManySnapshotsException;
 import com.ssd.tinytask.model.Todo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -165,4 +171,492 @@ class TodoRepositoryTest {
         assertEquals("Updated title", updated.get().getTitle());
         assertTrue(updated.get().isDone());
     }
+
+    // ========== SNAPSHOT TESTS ==========
+
+    @Test
+    @DisplayName("Should not expose stored todo to external mutation")
+    void shouldNotExposeStoredTodoToExternalMutation() {
+        // Given
+        Todo saved = todoRepository.save(new Todo("Original title"));
+
+        // When
+        saved.setDone(true);
+        todoRepository.findById(saved.getId()).get().setTitle("Changed");
+
+        // Then
+        Todo stored = todoRepository.findById(saved.getId()).get();
+        assertEquals("Original title", stored.getTitle());
+        assertFalse(stored.isDone());
+    }
+
+    @Test
+    @DisplayName("Should read a consistent state from a snapshot while writers continue")
+    void shouldReadConsistentStateFromSnapshot() {
+        // Given
+        Todo first = todoRepository.save(new Todo("Task 1"));
+        Todo second = todoRepository.save(new Todo("Task 2"));
+        TodoSnapshot snapshot = todoRepository.openSnapshot();
+
+        // When
+        first.setDone(true);
+        todoRepository.save(first);
+        todoRepository.deleteById(second.getId());
+        todoRepository.save(new Todo("Task 3"));
+
+        // Then
+        List<Todo> pinned = todoRepository.findPage(snapshot, 0, snapshot.getTotal());
+        assertEquals(2, pinned.size());
+        assertFalse(pinned.get(0).isDone());
+        assertEquals("Task 2", pinned.get(1).getTitle());
+        assertEquals(2, todoRepository.findAll().size());
+        assertTrue(todoRepository.findAll().get(0).isDone());
+    }
+
+    @Test
+    @DisplayName("Should find an open snapshot by token until it is released")
+    void shouldFindSnapshotUntilReleased() {
+        // Given
+        todoRepository.save(new Todo("Task 1"));
+        TodoSnapshot snapshot = todoRepository.openSnapshot();
+
+        // Then
+        assertTrue(todoRepository.findSnapshot(snapshot.getToken()).isPresent());
+        assertTrue(todoRepository.releaseSnapshot(snapshot.getToken()));
+        assertTrue(todoRepository.findSnapshot(snapshot.getToken()).isEmpty());
+        assertFalse(todoRepository.releaseSnapshot(snapshot.getToken()));
+    }
+
+    @Test
+    @DisplayName("Should expire snapshots whose lease has run out")
+    void shouldExpireSnapshotsAfterLease() {
+        // Given
+        TodoRepository shortLeaseRepository = new TodoRepository(0);
+        TodoSnapshot snapshot = shortLeaseRepository.openSnapshot();
+
+        // Then
+        assertTrue(shortLeaseRepository.findSnapshot(snapshot.getToken()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should expire abandoned snapshots on write so their history is reclaimed")
+    void shouldExpireAbandonedSnapshotsOnWrite() {
+        // Given
+        TodoRepository shortLeaseRepository = new TodoRepository(0);
+        Todo todo = shortLeaseRepository.save(new Todo("Task 1"));
+        shortLeaseRepository.openSnapshot();
+
+        // When
+        shortLeaseRepository.deleteById(todo.getId());
+
+        // Then: no snapshot pins the deleted version anymore, so its tombstone is gone
+        assertEquals(0, shortLeaseRepository.residentCount());
+    }
+
+    @Test
+    @DisplayName("Should reject snapshots above the open limit - Negative scenario")
+    void shouldRejectSnapshotsAboveLimit() {
+        // Given
+        TodoRepository limitedRepository = new TodoRepository(60, 100, null, 100, 1);
+        TodoSnapshot snapshot = limitedRepository.openSnapshot();
+
+        // When & Then
+        assertThrows(TooManySnapshotsException.class, limitedRepository::openSnapshot);
+        limitedRepository.releaseSnapshot(snapshot.getToken());
+        assertNotNull(limitedRepository.openSnapshot());
+    }
+
+    @Test
+    @DisplayName("Should refuse to read a snapshot released before the read - Negative scenario")
+    void shouldRefuseToReadReleasedSnapshot() {
+        // Given
+        todoRepository.save(new Todo("Task 1"));
+        TodoSnapshot snapshot = todoRepository.findSnapshot(todoRepository.openSnapshot().getToken()).orElseThrow();
+
+        // When
+        todoRepository.releaseSnapshot(snapshot.getToken());
+
+        // Then
+        assertThrows(SnapshotNotFoundException.class, () -> todoRepository.findPage(snapshot, 0, snapshot.getTotal()));
+    }
+
+    @Test
+    @DisplayName("Should prune retained history only once the oldest snapshot is released")
+    void shouldPruneWhenOldestSnapshotReleased() {
+        // Given
+        Todo deleted = todoRepository.save(new Todo("Task 1"));
+        TodoSnapshot snapshot = todoRepository.openSnapshot();
+        todoRepository.deleteById(deleted.getId());
+
+        // When
+        todoRepository.findAll();
+        int residentWhileOpen = todoRepository.residentCount();
+        todoRepository.atomically(() -> todoRepository.releaseSnapshot(snapshot.getToken()));
+
+        // Then
+        assertEquals(1, residentWhileOpen);
+        assertEquals(0, todoRepository.residentCount());
+    }
+
+    @Test
+    @DisplayName("Should page through a snapshot that includes evicted todos")
+    void shouldPageThroughSnapshotWithEvictedTodos(@TempDir Path dir) {
+        // Given
+        WriteBehindStore store = new WriteBehindStore(
+                new MvStoreTodoStore(dir.resolve("todos.mv.db").toString()), 100, 60_000, 2);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+        for (int i = 1; i <= 5; i++) {
+            repository.save(new Todo("Task " + i));
+        }
+        store.flushNow();
+        TodoSnapshot snapshot = repository.openSnapshot();
+        repository.deleteById(1L);
+        repository.save(new Todo("Task 6"));
+
+        // When
+        List<Todo> firstPage = repository.findPage(snapshot, 0, 3);
+        List<Todo> secondPage = repository.findPage(snapshot, 3, 5);
+
+        // Then
+        try {
+            assertEquals(5, snapshot.getTotal());
+            assertEquals(List.of("Task 1", "Task 2", "Task 3"), firstPage.stream().map(Todo::getTitle).toList());
+            assertEquals(List.of("Task 4", "Task 5"), secondPage.stream().map(Todo::getTitle).toList());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should list todos in creation order even when their IDs are not")
+    void shouldListInCreationOrder(@TempDir Path dir) {
+        // Given: IDs from different blocks, so the later todo has the lower ID
+        String file = dir.resolve("todos.mv.db").toString();
+        WriteBehindStore store = new WriteBehindStore(new MvStoreTodoStore(file), 100, 60_000, 100);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+        Todo first = repository.save(new Todo(101L, "First", false));
+        repository.save(new Todo(2L, "Second", false));
+        first.setDone(true);
+        repository.save(first);
+        store.flushNow();
+        store.close();
+
+        // When: reopened with room for a single todo in memory, so the other is only on disk
+        WriteBehindStore reopened = new WriteBehindStore(new MvStoreTodoStore(file), 100, 60_000, 1);
+        try {
+            TodoRepository restarted = new TodoRepository(60, 100, reopened);
+            Todo third = restarted.save(new Todo("Third"));
+            TodoSnapshot snapshot = restarted.openSnapshot();
+
+            // Then
+            List<String> expected = List.of("First", "Second", "Third");
+            assertEquals(expected, restarted.findAll().stream().map(Todo::getTitle).toList());
+            assertEquals(expected, restarted.findPage(snapshot, 0, 3).stream().map(Todo::getTitle).toList());
+            assertTrue(third.getCreatedSeq() > restarted.findById(101L).orElseThrow().getCreatedSeq());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // ========== CHANGE SEQUENCE TESTS ==========
+
+    @Test
+    @DisplayName("Should return only todos changed and deleted since a sequence number")
+    void shouldReturnChangesSinceSequence() {
+        // Given
+        Todo updated = todoRepository.save(new Todo("Task 1"));
+        Todo deleted = todoRepository.save(new Todo("Task 2"));
+        todoRepository.save(new Todo("Task 3"));
+        long since = todoRepository.currentVersion();
+
+        // When
+        updated.setDone(true);
+        todoRepository.save(updated);
+        todoRepository.deleteById(deleted.getId());
+        Todo created = todoRepository.save(new Todo("Task 4"));
+        long upTo = todoRepository.currentVersion();
+
+        // Then
+        assertTrue(todoRepository.canServeChangesSince(todoRepository.epoch(), since));
+        List<Todo> changed = todoRepository.findChangedSince(since, upTo);
+        assertEquals(List.of(updated.getId(), created.getId()), changed.stream().map(Todo::getId).toList());
+        assertTrue(changed.get(0).isDone());
+        assertEquals(List.of(deleted.getId()), todoRepository.findDeletedSince(since, upTo));
+        assertTrue(todoRepository.findChangedSince(upTo, upTo).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should refuse changes once the tombstone log was truncated - Negative scenario")
+    void shouldRefuseChangesAfterTombstoneLogTruncation() {
+        // Given
+        TodoRepository smallLogRepository = new TodoRepository(60, 2);
+        Todo first = smallLogRepository.save(new Todo("Task 1"));
+        Todo second = smallLogRepository.save(new Todo("Task 2"));
+        Todo third = smallLogRepository.save(new Todo("Task 3"));
+        long since = smallLogRepository.currentVersion();
+
+        // When
+        smallLogRepository.deleteById(first.getId());
+        smallLogRepository.deleteById(second.getId());
+        smallLogRepository.deleteById(third.getId());
+
+        // Then
+        assertFalse(smallLogRepository.canServeChangesSince(smallLogRepository.epoch(), since));
+        assertFalse(smallLogRepository.canServeChangesSince(smallLogRepository.epoch(), smallLogRepository.currentVersion() + 1));
+        assertTrue(smallLogRepository.canServeChangesSince(smallLogRepository.epoch(), smallLogRepository.currentVersion()));
+    }
+
+    @Test
+    @DisplayName("Should reload persisted todos after a restart")
+    void shouldReloadPersistedTodosAfterRestart(@TempDir Path dir) {
+        // Given
+        String file = dir.resolve("todos.mv.db").toString();
+        WriteBehindStore store = new WriteBehindStore(new MvStoreTodoStore(file), 100, 60_000, 100);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+        Todo kept = repository.save(new Todo("Task 1"));
+        Todo deleted = repository.save(new Todo("Task 2"));
+        kept.setDone(true);
+        repository.save(kept);
+        repository.deleteById(deleted.getId());
+        long version = repository.currentVersion();
+        store.close();
+
+        // When
+        WriteBehindStore reopened = new WriteBehindStore(new MvStoreTodoStore(file), 100, 60_000, 100);
+        TodoRepository restarted = new TodoRepository(60, 100, reopened);
+
+        // Then
+        try {
+            assertEquals(1, restarted.count());
+            assertTrue(restarted.findById(kept.getId()).orElseThrow().isDone());
+            assertFalse(restarted.existsById(deleted.getId()));
+            assertEquals(version, restarted.currentVersion());
+            assertFalse(restarted.canServeChangesSince(restarted.epoch(), version - 1));
+            assertFalse(restarted.canServeChangesSince(repository.epoch(), version));
+            // IDs continue above the high-water mark reserved for the first block before the restart
+            assertEquals(100L + 100L * IdAllocator.BLOCKS_PER_RESERVATION + 1, restarted.save(new Todo("Task 3")).getId());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should evict cold todos and read them back from disk")
+    void shouldEvictColdTodosAndReadThemFromDisk(@TempDir Path dir) {
+        // Given
+        WriteBehindStore store = new WriteBehindStore(
+                new MvStoreTodoStore(dir.resolve("todos.mv.db").toString()), 100, 60_000, 2);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+        for (int i = 1; i <= 5; i++) {
+            repository.save(new Todo("Task " + i));
+        }
+
+        // When
+        store.flushNow();
+        store.flushNow();
+
+        // Then
+        try {
+            assertEquals(2, repository.residentCount());
+            assertEquals(5, repository.count());
+            List<Todo> all = repository.findAll();
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), all.stream().map(Todo::getId).toList());
+            assertEquals("Task 1", repository.findById(1L).orElseThrow().getTitle());
+            assertTrue(repository.deleteById(2L));
+            assertFalse(repository.existsById(2L));
+            assertEquals(4, repository.findAll().size());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should look up evicted and unknown todos without waiting for writers")
+    void shouldLookUpEvictedTodosWithoutWriteLock(@TempDir Path dir) {
+        // Given
+        WriteBehindStore store = new WriteBehindStore(
+                new MvStoreTodoStore(dir.resolve("todos.mv.db").toString()), 100, 60_000, 2);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+        for (int i = 1; i <= 5; i++) {
+            repository.save(new Todo("Task " + i));
+        }
+        store.flushNow();
+
+        // When
+        List<Optional<Todo>> seenWhileWriting = repository.atomically(() -> {
+            try {
+                return List.of(
+                        CompletableFuture.supplyAsync(() -> repository.findById(1L)).get(5, TimeUnit.SECONDS),
+                        CompletableFuture.supplyAsync(() -> repository.findById(99L)).get(5, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Then
+        try {
+            assertEquals("Task 1", seenWhileWriting.get(0).orElseThrow().getTitle());
+            assertTrue(seenWhileWriting.get(1).isEmpty());
+            assertEquals(5, repository.findAll().size());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should coalesce queued writes to the same todo")
+    void shouldCoalesceQueuedWrites(@TempDir Path dir) {
+        // Given
+        MvStoreTodoStore disk = new MvStoreTodoStore(dir.resolve("todos.mv.db").toString());
+        WriteBehindStore store = new WriteBehindStore(disk, 100, 60_000, 100);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+        Todo todo = repository.save(new Todo("Task 1"));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            todo.setDone(!todo.isDone());
+            repository.save(todo);
+        }
+
+        // Then
+        try {
+            assertNull(disk.load(todo.getId()));
+            assertNotNull(store.pending(todo.getId()));
+            store.flushNow();
+            assertNull(store.pending(todo.getId()));
+            TodoStore.StoredTodo stored = disk.load(todo.getId());
+            assertEquals(repository.currentVersion(), stored.version());
+            assertFalse(stored.todo().isDone());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should store titles of any length")
+    void shouldStoreLongTitles() {
+        // Given
+        String longTitle = "é".repeat(40_000); // 80,000 UTF-8 bytes, more than writeUTF allows
+        Todo todo = new Todo(1L, longTitle, true, 7L, List.of("work"));
+        todo.setCreatedSeq(3L);
+
+        // When
+        TodoStore.StoredTodo decoded = MvStoreTodoStore.decode(1L, MvStoreTodoStore.encode(new TodoStore.StoredTodo(5, todo)));
+
+        // Then
+        assertEquals(5, decoded.version());
+        assertEquals(todo, decoded.todo());
+    }
+
+    @Test
+    @DisplayName("Should set aside a todo the store rejects and keep persisting later writes")
+    void shouldSetAsideRejectedTodo(@TempDir Path dir) {
+        // Given: a todo without title cannot be encoded
+        String file = dir.resolve("todos.mv.db").toString();
+        WriteBehindStore store = new WriteBehindStore(new MvStoreTodoStore(file), 100, 60_000, 1);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+        Todo rejected = repository.save(new Todo((String) null));
+        store.flushNow();
+
+        // When
+        Todo kept = repository.save(new Todo("Task 2"));
+        store.flushNow();
+        repository.save(new Todo("Task 3"));
+        store.flushNow();
+
+        // Then
+        assertEquals(1, store.rejectedCount());
+        assertTrue(repository.existsById(rejected.getId()));
+        assertEquals(3, repository.findAll().size());
+        store.close();
+        WriteBehindStore reopened = new WriteBehindStore(new MvStoreTodoStore(file), 100, 60_000, 100);
+        try {
+            TodoRepository restarted = new TodoRepository(60, 100, reopened);
+            assertEquals(2, restarted.count());
+            assertEquals("Task 2", restarted.findById(kept.getId()).orElseThrow().getTitle());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should queue an atomic change for the store only once it is published")
+    void shouldQueueAtomicChangeWhenPublished(@TempDir Path dir) {
+        // Given
+        MvStoreTodoStore disk = new MvStoreTodoStore(dir.resolve("todos.mv.db").toString());
+        WriteBehindStore store = new WriteBehindStore(disk, 1, 60_000, 100);
+        TodoRepository repository = new TodoRepository(60, 100, store);
+
+        // When
+        List<Todo> saved = repository.atomically(() -> {
+            Todo first = repository.save(new Todo("Task 1"));
+            store.flushNow();
+            Todo second = repository.save(new Todo("Task 2"));
+            assertNull(store.pending(first.getId()));
+            assertNull(disk.load(first.getId()));
+            return List.of(first, second);
+        });
+
+        // Then
+        try {
+            // The full queue is flushed once the change is complete
+            assertNull(store.pending(saved.get(0).getId()));
+            assertNotNull(disk.load(saved.get(0).getId()));
+            assertNotNull(disk.load(saved.get(1).getId()));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should publish the writes of an atomic change together")
+    void shouldPublishAtomicChangeTogether() throws Exception {
+        // Given
+        Todo first = todoRepository.save(new Todo("Task 1"));
+        Todo second = todoRepository.save(new Todo("Task 2"));
+        long versionBefore = todoRepository.currentVersion();
+
+        // When
+        List<Todo> seenDuringChange = todoRepository.atomically(() -> {
+            first.setDone(true);
+            todoRepository.save(first);
+            second.setDone(true);
+            todoRepository.save(second);
+            try {
+                return CompletableFuture.supplyAsync(todoRepository::findAll).get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Then
+        assertTrue(seenDuringChange.stream().noneMatch(Todo::isDone));
+        assertTrue(todoRepository.findAll().stream().allMatch(Todo::isDone));
+        assertEquals(versionBefore + 2, todoRepository.currentVersion());
+    }
+
+    @Test
+    @DisplayName("Should not index todos of an atomic change until it is published")
+    void shouldIndexAtomicChangeWhenPublished() {
+        // Given
+        Todo root = todoRepository.save(new Todo(null, "Root", false, null, List.of("work")));
+
+        // When
+        long[][] seenDuringChange = todoRepository.atomically(() -> {
+            todoRepository.save(new Todo(null, "Child", false, root.getId(), List.of("work")));
+            try {
+                return CompletableFuture.supplyAsync(() -> new long[][]{
+                        todoRepository.findIdsByTag("work"),
+                        todoRepository.findSubtreeIds(root.getId())}).get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Then
+        assertArrayEquals(new long[]{root.getId()}, seenDuringChange[0]);
+        assertArrayEquals(new long[]{root.getId()}, seenDuringChange[1]);
+        assertEquals(2, todoRepository.findIdsByTag("work").length);
+        assertEquals(2, todoRepository.findSubtreeIds(root.getId()).length);
+    }
 }
@@ -0,0 +1,112 @@
+package com.ssd.tinytask.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TitlePool
+ */
+class TitlePoolTest {
+
+    // Keeps allocations used to trigger collections from being optimized away
+    private static volatile byte[] garbage;
+
+    private static final List<String> RECURRING_TITLES = List.of(
+            "Daily standup", "Review PRs", "Answer email", "Weekly planning", "Update Jira board",
+            "Deploy to staging", "Write release notes", "1:1 with manager", "Team retrospective", "Check CI pipeline");
+
+    @Test
+    @DisplayName("Should return the pooled instance for equal titles")
+    void shouldReturnPooledInstanceForEqualTitles() {
+        // Given
+        TitlePool pool = new TitlePool(10);
+        String first = new String("Review PRs");
+        String second = new String("Review PRs");
+
+        // When
+        String canonicalFirst = pool.canonicalize(first);
+        String canonicalSecond = pool.canonicalize(second);
+
+        // Then
+        assertSame(first, canonicalFirst);
+        assertSame(first, canonicalSecond);
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.hitCount());
+        assertEquals(1, pool.missCount());
+    }
+
+    @Test
+    @DisplayName("Should stop pooling new titles when full")
+    void shouldStopPoolingWhenFull() {
+        // Given
+        TitlePool pool = new TitlePool(1);
+        String pooled = pool.canonicalize("Daily standup");
+
+        // When
+        String overflow = new String("Review PRs");
+
+        // Then
+        assertSame(overflow, pool.canonicalize(overflow));
+        assertSame(pooled, pool.canonicalize(new String("Daily standup")));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    @DisplayName("Should return null for null titles")
+    void shouldReturnNullForNullTitles() {
+        assertNull(new TitlePool(10).canonicalize(null));
+    }
+
+    @Test
+    @DisplayName("Should release titles no longer referenced")
+    void shouldReleaseUnreferencedTitles() {
+        // Given
+        TitlePool pool = new TitlePool(10);
+        pool.canonicalize("Kept title");
+        pool.canonicalize(new String("Temporary title"));
+
+        // When: allocate until a young collection clears the entry, since System.gc() may be disabled
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (pool.size() > 1 && System.nanoTime() < deadline) {
+            System.gc();
+            for (int i = 0; i < 64; i++) {
+                garbage = new byte[128 * 1024];
+            }
+            pool.canonicalize("Kept title");
+        }
+
+        // Then
+        assertEquals(1, pool.size());
+        assertEquals("Kept title", pool.canonicalize(new String("Kept title")));
+    }
+
+    @Test
+    @DisplayName("Should keep one instance per distinct title on a repetitive dataset")
+    void shouldKeepOneInstancePerDistinctTitle() {
+        // Given: titles arrive as fresh copies, like strings deserialized from JSON
+        int todos = 100_000;
+        TitlePool pool = new TitlePool(10_000);
+        List<String> withPool = new ArrayList<>(todos);
+
+        // When
+        for (int i = 0; i < todos; i++) {
+            String title = RECURRING_TITLES.get(i % RECURRING_TITLES.size());
+            withPool.add(pool.canonicalize(new String(title.toCharArray())));
+        }
+
+        // Then
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        instances.addAll(withPool);
+        assertEquals(RECURRING_TITLES.size(), instances.size());
+        assertEquals(todos - RECURRING_TITLES.size(), pool.hitCount());
+    }
+}
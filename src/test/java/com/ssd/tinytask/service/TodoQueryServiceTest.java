@@ -0,0 +1,147 @@
+package com.ssd.tinytask.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssd.tinytask.dto.TodoGroup;
+import com.ssd.tinytask.dto.TodoQueryRequest;
+import com.ssd.tinytask.dto.TodoQueryResult;
+import com.ssd.tinytask.exception.InvalidQueryException;
+import com.ssd.tinytask.exception.QueryTimeoutException;
+import com.ssd.tinytask.model.Todo;
+import com.ssd.tinytask.repository.TodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TodoQueryService
+ */
+class TodoQueryServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TodoRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TodoRepository();
+        repository.save(new Todo(null, "Write report", false, null, List.of("work")));
+        repository.save(new Todo(null, "write tests", true, null, List.of("work", "code")));
+        repository.save(new Todo(null, "Review report", false, null, List.of()));
+        repository.save(new Todo(null, "Write docs", false, null, List.of("code")));
+    }
+
+    @Test
+    @DisplayName("Should filter todos and project the requested fields")
+    void shouldFilterAndProject() throws Exception {
+        // Given
+        TodoQueryService service = new TodoQueryService(repository, objectMapper, 10_000, 2000, 100);
+        TodoQueryRequest request = new TodoQueryRequest(
+                new TodoQueryRequest.Filter(false, "REPORT", null, null), List.of("id", "title"), null, null);
+
+        // When
+        TodoQueryResult result = service.query(request);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeResult(result, out);
+
+        // Then
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, json.get("matched").asLong());
+        assertFalse(json.get("parallel").asBoolean());
+        assertEquals(2, json.get("rows").size());
+        assertEquals("Write report", json.get("rows").get(0).get("title").asText());
+        assertEquals("Review report", json.get("rows").get(1).get("title").asText());
+        assertEquals(2, json.get("rows").get(0).size());
+        assertFalse(json.has("groups"));
+    }
+
+    @Test
+    @DisplayName("Should group by first word and keep the top groups")
+    void shouldGroupByFirstWordWithLimit() {
+        // Given
+        TodoQueryService service = new TodoQueryService(repository, objectMapper, 10_000, 2000, 100);
+        TodoQueryRequest request = new TodoQueryRequest(null, null, "firstWord", 1);
+
+        // When
+        TodoQueryResult result = service.query(request);
+
+        // Then
+        assertEquals(4, result.getMatched());
+        assertEquals(List.of(new TodoGroup("write", 3)), result.getGroups());
+        assertNull(result.getRows());
+    }
+
+    @Test
+    @DisplayName("Should return the same result on the parallel path as on the sequential path")
+    void shouldMatchSequentialResultWhenParallel() {
+        // Given
+        for (int i = 0; i < 5_000; i++) {
+            repository.save(new Todo(null, "Task " + (i % 7), i % 3 == 0, null, List.of("t" + (i % 5))));
+        }
+        TodoQueryService sequential = new TodoQueryService(repository, objectMapper, Integer.MAX_VALUE, 10_000, 100_000);
+        TodoQueryService parallel = new TodoQueryService(repository, objectMapper, 1, 10_000, 100_000);
+        TodoQueryRequest rows = new TodoQueryRequest(new TodoQueryRequest.Filter(true, "task", null, null), null, null, 500);
+        TodoQueryRequest groups = new TodoQueryRequest(null, null, "tag", null);
+
+        // When
+        TodoQueryResult sequentialRows = sequential.query(rows);
+        TodoQueryResult parallelRows = parallel.query(rows);
+
+        // Then
+        assertTrue(parallelRows.isParallel());
+        assertEquals(sequentialRows.getMatched(), parallelRows.getMatched());
+        assertEquals(sequentialRows.getRows(), parallelRows.getRows());
+        assertEquals(sequential.query(groups).getGroups(), parallel.query(groups).getGroups());
+    }
+
+    @Test
+    @DisplayName("Should keep only the first rows up to the limit while counting every match")
+    void shouldKeepRowsUpToLimit() {
+        // Given
+        for (int i = 0; i < 5_000; i++) {
+            repository.save(new Todo(null, "Task " + i, false, null, List.of()));
+        }
+        TodoQueryRequest request = new TodoQueryRequest(new TodoQueryRequest.Filter(false, null, null, null), List.of("id"), null, 10);
+
+        // When
+        TodoQueryResult sequential = new TodoQueryService(repository, objectMapper, Integer.MAX_VALUE, 10_000, 100).query(request);
+        TodoQueryResult parallel = new TodoQueryService(repository, objectMapper, 1, 10_000, 100).query(request);
+
+        // Then
+        assertEquals(5_003, sequential.getMatched());
+        assertEquals(10, sequential.getRows().size());
+        assertEquals(sequential.getMatched(), parallel.getMatched());
+        assertEquals(sequential.getRows(), parallel.getRows());
+    }
+
+    @Test
+    @DisplayName("Should fail a query that exceeds the timeout")
+    void shouldFailOnTimeout() {
+        // Given
+        TodoQueryService service = new TodoQueryService(repository, objectMapper, 10_000, 0, 100);
+
+        // When & Then
+        assertThrows(QueryTimeoutException.class, () -> service.query(new TodoQueryRequest()));
+        assertThrows(QueryTimeoutException.class,
+                () -> service.query(new TodoQueryRequest(null, null, "firstWord", null)));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown fields, groupings and limits")
+    void shouldRejectInvalidQueries() {
+        // Given
+        TodoQueryService service = new TodoQueryService(repository, objectMapper, 10_000, 2000, 100);
+
+        // When & Then
+        assertThrows(InvalidQueryException.class,
+                () -> service.query(new TodoQueryRequest(null, List.of("secret"), null, null)));
+        assertThrows(InvalidQueryException.class,
+                () -> service.query(new TodoQueryRequest(null, null, "color", null)));
+        assertThrows(InvalidQueryException.class,
+                () -> service.query(new TodoQueryRequest(null, null, null, 101)));
+    }
+}
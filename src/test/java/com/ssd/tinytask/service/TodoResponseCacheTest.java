@@ -0,0 +1,159 @@
+package com.ssd.tinytask.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssd.tinytask.exception.TodoNotFoundException;
+import com.ssd.tinytask.model.Todo;
+import com.ssd.tinytask.repository.TodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TodoResponseCache and SingleFlight
+ */
+class TodoResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TodoRepository repository;
+    private TodoService service;
+    private TodoResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TodoRepository();
+        service = new TodoService(repository, new TitlePool(100));
+        cache = new TodoResponseCache(service, repository, objectMapper, 100);
+    }
+
+    @Test
+    @DisplayName("Should serve the same bytes until the next mutation")
+    void shouldServeCachedBytesUntilMutation() throws Exception {
+        // Given
+        Todo todo = service.createTodo(new Todo("Task 1"));
+        byte[] first = cache.getAllTodosJson();
+
+        // When
+        byte[] second = cache.getAllTodosJson();
+        service.toggleTodo(todo.getId());
+        byte[] afterToggle = cache.getAllTodosJson();
+
+        // Then
+        assertSame(first, second);
+        assertNotSame(first, afterToggle);
+        assertArrayEquals(objectMapper.writeValueAsBytes(service.getAllTodos()), afterToggle);
+        assertTrue(objectMapper.readTree(afterToggle).get(0).get("done").asBoolean());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    @DisplayName("Should serve cached bytes per todo ID")
+    void shouldServeCachedBytesPerTodo() throws Exception {
+        // Given
+        Todo first = service.createTodo(new Todo("Task 1"));
+        Todo second = service.createTodo(new Todo("Task 2"));
+
+        // When
+        byte[] firstJson = cache.getTodoJson(first.getId());
+        byte[] secondJson = cache.getTodoJson(second.getId());
+
+        // Then
+        assertSame(firstJson, cache.getTodoJson(first.getId()));
+        assertEquals("Task 1", objectMapper.readTree(firstJson).get("title").asText());
+        assertEquals("Task 2", objectMapper.readTree(secondJson).get("title").asText());
+    }
+
+    @Test
+    @DisplayName("Should not cache missing todos - Negative scenario")
+    void shouldNotCacheMissingTodos() {
+        // When & Then
+        assertThrows(TodoNotFoundException.class, () -> cache.getTodoJson(999L));
+        Todo created = service.createTodo(new Todo("Task 1"));
+        assertDoesNotThrow(() -> cache.getTodoJson(created.getId()));
+    }
+
+    @Test
+    @DisplayName("Should share one computation between concurrent identical calls")
+    void shouldShareOneComputationBetweenConcurrentCalls() throws Exception {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // When
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            results.add(executor.submit(() -> singleFlight.run("todos", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                return 42;
+            })));
+            started.await();
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.run("todos", executions::incrementAndGet)));
+            }
+            Thread.sleep(100); // Let the followers join the running flight
+            release.countDown();
+
+            // Then
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should propagate the leader's exception to every waiting caller - Negative scenario")
+    void shouldPropagateExceptionToWaitingCallers() throws Exception {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // When
+        try {
+            Future<Integer> leader = executor.submit(() -> singleFlight.run("todo-999", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                throw new TodoNotFoundException(999L);
+            }));
+            started.await();
+            Future<Integer> follower = executor.submit(() -> singleFlight.run("todo-999", () -> 1));
+            Thread.sleep(100);
+            release.countDown();
+
+            // Then
+            ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TodoNotFoundException.class, leaderError.getCause());
+            ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TodoNotFoundException.class, followerError.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.ssd.tinytask.service;
 
+import com.ssd.tinytask.dto.TodoChanges;
+import com.ssd.tinytask.dto.TodoPage;
 import com.ssd.tinytask.exception.InvalidTodoException;
+import com.ssd.tinytask.exception.SnapshotNotFoundException;
 import com.ssd.tinytask.exception.TodoNotFoundException;
 import com.ssd.tinytask.model.Todo;
 import com.ssd.tinytask.repository.TodoRepository;
@@ -10,11 +13,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,6 +34,9 @@ class TodoServiceTest {
     @Mock
     private TodoRepository todoRepository;
 
+    @Spy
+    private TitlePool titlePool = new TitlePool(100);
+
     @InjectMocks
     private TodoService todoService;
 
@@ -137,8 +145,10 @@ class TodoServiceTest {
     @DisplayName("Should toggle todo from false to true - Positive scenario")
     void shouldToggleTodoFromFalseToTrue() {
         // Given
+        stubAtomically();
         when(todoRepository.findById(1L)).thenReturn(Optional.of(sampleTodo));
         when(todoRepository.save(any(Todo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(todoRepository.findSubtreeIds(1L)).thenReturn(new long[]{1L});
 
         // When
         Optional<Todo> result = todoService.toggleTodo(1L);
@@ -155,8 +165,10 @@ class TodoServiceTest {
     void shouldToggleTodoFromTrueToFalse() {
         // Given
         sampleTodo.setDone(true);
+        stubAtomically();
         when(todoRepository.findById(1L)).thenReturn(Optional.of(sampleTodo));
         when(todoRepository.save(any(Todo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(todoRepository.findSubtreeIds(1L)).thenReturn(new long[]{1L});
 
         // When
         Optional<Todo> result = todoService.toggleTodo(1L);
@@ -170,6 +182,7 @@ class TodoServiceTest {
     @DisplayName("Should return empty when toggling non-existent todo - Negative scenario")
     void shouldReturnEmptyWhenTogglingNonExistentTodo() {
         // Given
+        stubAtomically();
         when(todoRepository.findById(999L)).thenReturn(Optional.empty());
 
         // When
@@ -187,6 +200,8 @@ class TodoServiceTest {
     @DisplayName("Should delete existing todo - Positive scenario")
     void shouldDeleteExistingTodo() {
         // Given
+        stubAtomically();
+        when(todoRepository.findSubtreeIds(1L)).thenReturn(new long[]{1L});
         when(todoRepository.deleteById(1L)).thenReturn(true);
 
         // When
@@ -201,6 +216,8 @@ class TodoServiceTest {
     @DisplayName("Should return false when deleting non-existent todo - Negative scenario")
     void shouldReturnFalseWhenDeletingNonExistentTodo() {
         // Given
+        stubAtomically();
+        when(todoRepository.findSubtreeIds(999L)).thenReturn(new long[0]);
         when(todoRepository.deleteById(999L)).thenReturn(false);
 
         // When
@@ -257,4 +274,260 @@ class TodoServiceTest {
         assertThrows(TodoNotFoundException.class, () -> todoService.getTodoById(999L));
         verify(todoRepository, times(1)).findById(999L);
     }
+
+    // ========== PAGINATION TESTS ==========
+
+    @Test
+    @DisplayName("Should page through todos of a reused snapshot - Positive scenario")
+    void shouldPageThroughTodosOfSnapshot() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        repository.save(new Todo("Task 1"));
+        repository.save(new Todo("Task 2"));
+        repository.save(new Todo("Task 3"));
+
+        // When
+        TodoPage firstPage = service.getTodosPage(null, 0, 2);
+        repository.save(new Todo("Task 4"));
+        TodoPage secondPage = service.getTodosPage(firstPage.getSnapshot(), 1, 2);
+
+        // Then
+        assertEquals(2, firstPage.getItems().size());
+        assertEquals(3, secondPage.getTotal());
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals("Task 3", secondPage.getItems().get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("Should throw exception for unknown snapshot token - Negative scenario")
+    void shouldThrowExceptionForUnknownSnapshot() {
+        // Given
+        when(todoRepository.findSnapshot("missing")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(SnapshotNotFoundException.class, () -> todoService.getTodosPage("missing", 0, 10));
+    }
+
+    @Test
+    @DisplayName("Should throw exception when page size is out of range - Negative scenario")
+    void shouldThrowExceptionWhenPageSizeOutOfRange() {
+        // When & Then
+        assertThrows(InvalidTodoException.class, () -> todoService.getTodosPage(null, 0, 0));
+        verify(todoRepository, never()).openSnapshot();
+    }
+
+    // ========== TITLE POOL TESTS ==========
+
+    @Test
+    @DisplayName("Should trim and share repeated titles when creating todos")
+    void shouldTrimAndShareRepeatedTitles() {
+        // Given
+        when(todoRepository.save(any(Todo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Todo first = todoService.createTodo(new Todo(new String("Daily standup")));
+        Todo second = todoService.createTodo(new Todo("  Daily standup  "));
+
+        // Then
+        assertEquals("Daily standup", second.getTitle());
+        assertSame(first.getTitle(), second.getTitle());
+    }
+
+    // ========== CHANGE SYNC TESTS ==========
+
+    @Test
+    @DisplayName("Should return the full list with resync on first sync, then only deltas")
+    void shouldReturnFullListThenDeltas() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        repository.save(new Todo("Task 1"));
+        Todo toDelete = repository.save(new Todo("Task 2"));
+
+        // When
+        TodoChanges initial = service.getChangesSince(null, 0);
+        repository.deleteById(toDelete.getId());
+        TodoChanges delta = service.getChangesSince(initial.getEpoch(), initial.getSeq());
+
+        // Then
+        assertTrue(initial.isResync());
+        assertEquals(2, initial.getUpserts().size());
+        assertFalse(delta.isResync());
+        assertTrue(delta.getUpserts().isEmpty());
+        assertEquals(List.of(toDelete.getId()), delta.getDeleted());
+        assertTrue(delta.getSeq() > initial.getSeq());
+    }
+
+    @Test
+    @DisplayName("Should ask for resync when changes cannot be reconstructed - Negative scenario")
+    void shouldAskForResyncWhenChangesUnavailable() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        repository.save(new Todo("Task 1"));
+
+        // When
+        TodoChanges changes = service.getChangesSince(repository.epoch(), 999L);
+
+        // Then
+        assertTrue(changes.isResync());
+        assertEquals(1, changes.getUpserts().size());
+    }
+
+    @Test
+    @DisplayName("Should ask for resync when the sequence is from another epoch - Negative scenario")
+    void shouldAskForResyncForSequenceFromAnotherEpoch() {
+        // Given: a client synced against a server that has since restarted and caught up in versions
+        TodoRepository beforeRestart = new TodoRepository();
+        beforeRestart.save(new Todo("Task 1"));
+        TodoChanges synced = new TodoService(beforeRestart, new TitlePool(100)).getChangesSince(null, 0);
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        repository.save(new Todo("Task 2"));
+        repository.save(new Todo("Task 3"));
+
+        // When
+        TodoChanges changes = service.getChangesSince(synced.getEpoch(), synced.getSeq());
+
+        // Then
+        assertTrue(synced.getSeq() <= repository.currentVersion());
+        assertTrue(changes.isResync());
+        assertEquals(2, changes.getUpserts().size());
+        assertEquals(repository.epoch(), changes.getEpoch());
+    }
+
+    // ========== SUBTASK AND TAG TESTS ==========
+
+    @Test
+    @DisplayName("Should cascade toggle to the whole subtree")
+    void shouldCascadeToggleToSubtree() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        Todo project = service.createTodo(new Todo("Release 1.0"));
+        Todo task = service.createTodo(subtaskOf(project, "Write changelog"));
+        Todo step = service.createTodo(subtaskOf(task, "Collect merged PRs"));
+        Todo other = service.createTodo(new Todo("Unrelated task"));
+        long versionBefore = repository.currentVersion();
+
+        // When
+        Optional<Todo> toggled = service.toggleTodo(project.getId());
+
+        // Then
+        assertTrue(toggled.orElseThrow().isDone());
+        assertTrue(repository.findById(task.getId()).orElseThrow().isDone());
+        assertTrue(repository.findById(step.getId()).orElseThrow().isDone());
+        assertFalse(repository.findById(other.getId()).orElseThrow().isDone());
+        assertEquals(versionBefore + 3, repository.currentVersion());
+
+        service.toggleTodo(project.getId());
+        assertFalse(repository.findById(step.getId()).orElseThrow().isDone());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when parent doesn't exist - Negative scenario")
+    void shouldThrowExceptionWhenParentNotFound() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        Todo orphan = new Todo("Orphan subtask");
+        orphan.setParentId(999L);
+
+        // When & Then
+        assertThrows(InvalidTodoException.class, () -> service.createTodo(orphan));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    @DisplayName("Should page through a subtree breadth-first")
+    void shouldPageThroughSubtreeBreadthFirst() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        Todo root = service.createTodo(new Todo("Root task"));
+        Todo first = service.createTodo(subtaskOf(root, "First child"));
+        Todo second = service.createTodo(subtaskOf(root, "Second child"));
+        Todo grandchild = service.createTodo(subtaskOf(first, "Grandchild"));
+
+        // When
+        TodoPage firstPage = service.getSubtree(root.getId(), 0, 3);
+        TodoPage secondPage = service.getSubtree(root.getId(), 1, 3);
+
+        // Then
+        assertEquals(4, firstPage.getTotal());
+        assertEquals(List.of(root.getId(), first.getId(), second.getId()),
+                firstPage.getItems().stream().map(Todo::getId).toList());
+        assertEquals(List.of(grandchild.getId()), secondPage.getItems().stream().map(Todo::getId).toList());
+        assertThrows(TodoNotFoundException.class, () -> service.getSubtree(999L, 0, 10));
+    }
+
+    @Test
+    @DisplayName("Should delete a todo together with its subtasks")
+    void shouldDeleteTodoWithSubtasks() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        Todo root = service.createTodo(new Todo("Root task"));
+        Todo child = service.createTodo(subtaskOf(root, "Child task"));
+        service.createTodo(subtaskOf(child, "Grandchild"));
+        Todo other = service.createTodo(new Todo("Unrelated task"));
+
+        // When
+        boolean deleted = service.deleteTodo(root.getId());
+
+        // Then
+        assertTrue(deleted);
+        assertEquals(List.of(other.getId()), repository.findAll().stream().map(Todo::getId).toList());
+        assertEquals(0, repository.findSubtreeIds(root.getId()).length);
+    }
+
+    @Test
+    @DisplayName("Should normalize tags and page through a tag's todos")
+    void shouldNormalizeTagsAndPageByTag() {
+        // Given
+        TodoRepository repository = new TodoRepository();
+        TodoService service = new TodoService(repository, new TitlePool(100));
+        Todo first = new Todo("Fix login bug");
+        first.setTags(List.of(" Backend ", "urgent", "backend"));
+        Todo second = new Todo("Fix signup bug");
+        second.setTags(List.of("BACKEND"));
+        Todo created = service.createTodo(first);
+        service.createTodo(second);
+        service.createTodo(new Todo("Untagged task"));
+
+        // When
+        TodoPage page = service.getTodosByTag("Backend", 0, 1);
+
+        // Then
+        assertEquals(List.of("backend", "urgent"), created.getTags());
+        assertEquals(2, page.getTotal());
+        assertEquals(List.of(created.getId()), page.getItems().stream().map(Todo::getId).toList());
+        assertEquals(0, service.getTodosByTag("missing", 0, 10).getTotal());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when a tag is blank - Negative scenario")
+    void shouldThrowExceptionWhenTagIsBlank() {
+        // Given
+        Todo todo = new Todo("Valid task title");
+        todo.setTags(List.of("  "));
+
+        // When & Then
+        assertThrows(InvalidTodoException.class, () -> todoService.createTodo(todo));
+        verify(todoRepository, never()).save(any(Todo.class));
+    }
+
+    private static Todo subtaskOf(Todo parent, String title) {
+        Todo subtask = new Todo(title);
+        subtask.setParentId(parent.getId());
+        return subtask;
+    }
+
+    /**
+     * Makes the mocked repository run atomic work inline
+     */
+    private void stubAtomically() {
+        when(todoRepository.atomically(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
 }
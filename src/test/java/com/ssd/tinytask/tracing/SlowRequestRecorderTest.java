@@ -0,0 +1,132 @@
+package com.ssd.tinytask.tracing;
+
+import com.ssd.tinytask.dto.TraceSummary;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SlowRequestRecorder and TraceSpans
+ */
+class SlowRequestRecorderTest {
+
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    void tearDown() {
+        TraceSpans.reset();
+        tracerProvider.close();
+    }
+
+    private Tracer install(Sampler sampler, SlowRequestRecorder recorder) {
+        tracerProvider = SdkTracerProvider.builder().setSampler(sampler).addSpanProcessor(recorder).build();
+        Tracer tracer = tracerProvider.get("test");
+        TraceSpans.install(tracer);
+        return tracer;
+    }
+
+    @Test
+    @DisplayName("Should record sampled requests with their span breakdown")
+    void shouldRecordSampledRequestsWithBreakdown() {
+        // Given
+        SlowRequestRecorder recorder = new SlowRequestRecorder(8);
+        Tracer tracer = install(Sampler.alwaysOn(), recorder);
+
+        // When
+        Span root = tracer.spanBuilder("GET /api/todos").startSpan();
+        try (Scope ignored = root.makeCurrent()) {
+            try (SpanScope service = TraceSpans.child("TodoService.getAllTodos")) {
+                try (SpanScope repository = TraceSpans.child("TodoRepository.findAll")) {
+                    assertNotSame(SpanScope.NOOP, repository);
+                }
+            }
+        } finally {
+            root.end();
+        }
+
+        // Then
+        List<TraceSummary> slowest = recorder.slowest(10);
+        assertEquals(1, slowest.size());
+        assertEquals("GET /api/todos", slowest.get(0).getName());
+        assertEquals(2, slowest.get(0).getSpans().size());
+        assertEquals("TodoService.getAllTodos", slowest.get(0).getSpans().get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Should skip child spans of unsampled requests")
+    void shouldSkipChildSpansOfUnsampledRequests() {
+        // Given
+        SlowRequestRecorder recorder = new SlowRequestRecorder(8);
+        Tracer tracer = install(Sampler.alwaysOff(), recorder);
+
+        // When
+        Span root = tracer.spanBuilder("GET /api/todos").startSpan();
+        try (Scope ignored = root.makeCurrent()) {
+            // Then
+            assertSame(SpanScope.NOOP, TraceSpans.child("TodoService.getAllTodos"));
+        } finally {
+            root.end();
+        }
+        assertTrue(recorder.slowest(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep only the most recent requests and order them by duration")
+    void shouldKeepMostRecentRequestsOrderedByDuration() {
+        // Given
+        SlowRequestRecorder recorder = new SlowRequestRecorder(2);
+        Tracer tracer = install(Sampler.alwaysOn(), recorder);
+
+        // When
+        for (long durationNanos : new long[]{5_000_000, 1_000_000, 3_000_000}) {
+            long startNanos = TimeUnit.SECONDS.toNanos(1);
+            tracer.spanBuilder("request").setStartTimestamp(startNanos, TimeUnit.NANOSECONDS)
+                    .startSpan()
+                    .end(startNanos + durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        // Then
+        List<TraceSummary> slowest = recorder.slowest(10);
+        assertEquals(2, slowest.size());
+        assertEquals(3.0, slowest.get(0).getDurationMillis(), 0.001);
+        assertEquals(1.0, slowest.get(1).getDurationMillis(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Should drop only the oldest in-flight traces when too many are pending")
+    void shouldDropOldestPendingTraces() {
+        // Given
+        SlowRequestRecorder recorder = new SlowRequestRecorder(8);
+        Tracer tracer = install(Sampler.alwaysOn(), recorder);
+        List<Span> roots = new ArrayList<>();
+
+        // When: one more trace is in flight than the recorder buffers
+        for (int i = 0; i <= SlowRequestRecorder.MAX_PENDING_TRACES; i++) {
+            Span root = tracer.spanBuilder("request " + i).startSpan();
+            try (Scope ignored = root.makeCurrent()) {
+                TraceSpans.child("TodoService.getAllTodos").close();
+            }
+            roots.add(root);
+        }
+        roots.get(0).end();
+        roots.get(roots.size() - 1).end();
+
+        // Then
+        List<TraceSummary> recorded = recorder.slowest(10);
+        assertEquals(2, recorded.size());
+        for (TraceSummary trace : recorded) {
+            assertEquals(trace.getName().equals("request 0") ? 0 : 1, trace.getSpans().size());
+        }
+    }
+}
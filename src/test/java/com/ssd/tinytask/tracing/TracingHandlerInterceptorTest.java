@@ -0,0 +1,124 @@
+package com.ssd.tinytask.tracing;
+
+import com.ssd.tinytask.dto.TraceSummary;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for TracingFilter and TracingHandlerInterceptor
+ */
+class TracingHandlerInterceptorTest {
+
+    private SdkTracerProvider tracerProvider;
+    private SlowRequestRecorder recorder;
+    private Tracer tracer;
+    private final List<String> endedSpans = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        recorder = new SlowRequestRecorder(8);
+        SpanProcessor endedSpanNames = new SpanProcessor() {
+            @Override
+            public void onStart(Context parentContext, ReadWriteSpan span) {
+            }
+
+            @Override
+            public boolean isStartRequired() {
+                return false;
+            }
+
+            @Override
+            public void onEnd(ReadableSpan span) {
+                endedSpans.add(span.getName());
+            }
+
+            @Override
+            public boolean isEndRequired() {
+                return true;
+            }
+        };
+        tracerProvider = SdkTracerProvider.builder().setSampler(Sampler.alwaysOn())
+                .addSpanProcessor(recorder).addSpanProcessor(endedSpanNames).build();
+        tracer = tracerProvider.get("test");
+        TraceSpans.install(tracer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TraceSpans.reset();
+        tracerProvider.close();
+    }
+
+    @RestController
+    static class StreamingController {
+        @GetMapping("/api/todos/stream")
+        public StreamingResponseBody stream() {
+            return out -> out.write("[]".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private MockMvc mockMvc(double sampleRatio) {
+        return MockMvcBuilders.standaloneSetup(new StreamingController())
+                .addInterceptors(new TracingHandlerInterceptor())
+                .addFilters(new TracingFilter(tracer, sampleRatio))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should finish the trace of an asynchronous request with its controller span")
+    void shouldFinishTraceOfAsyncRequest() throws Exception {
+        // Given
+        MockMvc mockMvc = mockMvc(1.0);
+
+        // When
+        MvcResult started = mockMvc.perform(get("/api/todos/stream")).andExpect(request().asyncStarted()).andReturn();
+        List<String> endedOnRequestThread = List.copyOf(endedSpans);
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andExpect(content().string("[]"));
+
+        // Then: the controller span ends when the request thread hands over, the root once the response completes
+        assertEquals(List.of("StreamingController.stream"), endedOnRequestThread);
+        List<TraceSummary> traces = recorder.slowest(10);
+        assertEquals(1, traces.size());
+        assertEquals("GET /api/todos/stream", traces.get(0).getName());
+        assertEquals(List.of("StreamingController.stream"),
+                traces.get(0).getSpans().stream().map(span -> span.getName()).toList());
+    }
+
+    @Test
+    @DisplayName("Should not start any span for unsampled requests")
+    void shouldNotTraceUnsampledRequests() throws Exception {
+        // Given
+        MockMvc mockMvc = mockMvc(0.0);
+
+        // When
+        MvcResult started = mockMvc.perform(get("/api/todos/stream")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        // Then
+        assertTrue(recorder.slowest(10).isEmpty());
+    }
+}